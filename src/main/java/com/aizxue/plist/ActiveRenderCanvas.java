@@ -0,0 +1,152 @@
+package com.aizxue.plist;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 主动渲染画布
+ * 由独立的渲染线程按播放时钟的帧边界直接绘制到BufferStrategy（翻页或块拷贝），
+ * 不经过EDT的repaint合并，EDT只负责处理输入；适合高帧率（120fps以上）查看特效动画
+ */
+public class ActiveRenderCanvas extends Canvas {
+
+    /**
+     * 画面绘制回调，在渲染线程上执行
+     */
+    public interface Renderer {
+        void render(Graphics2D g, int width, int height);
+    }
+
+    // 距目标时刻不足此值时改为自旋，弥补parkNanos的唤醒误差
+    private static final long SPIN_THRESHOLD_NANOS = 200_000L;
+    // 未播放时的刷新间隔：响应单步、缩放以及纹理页加载完成
+    private static final long IDLE_REFRESH_NANOS = 100_000_000L;
+
+    private final PlaybackClock clock;
+    private final Renderer renderer;
+    private volatile Thread thread;
+    private volatile boolean renderRequested = true;
+
+    public ActiveRenderCanvas(PlaybackClock clock, Renderer renderer) {
+        this.clock = clock;
+        this.renderer = renderer;
+        setIgnoreRepaint(true);
+    }
+
+    /**
+     * 创建双缓冲并启动渲染线程，画布必须已加入可显示的窗口
+     */
+    public synchronized void start() {
+        if (thread != null) return;
+        if (!isDisplayable()) {
+            throw new IllegalStateException("画布尚未加入窗口");
+        }
+        createBufferStrategy(2);
+        Thread t = new Thread(this::run, "active-render");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY + 2);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * 停止渲染线程并等待其退出（最多等待500毫秒）
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        if (t != null && t != Thread.currentThread()) {
+            LockSupport.unpark(t);
+            try {
+                t.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * 请求尽快重绘一次（暂停状态下单步、切换序列等）
+     */
+    public void requestRender() {
+        renderRequested = true;
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        // 缓冲区随peer一起销毁，先停掉渲染线程
+        stop();
+        super.removeNotify();
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        long lastFrame = Long.MIN_VALUE;
+        while (thread == self) {
+            if (clock.isRunning()) {
+                long frame = clock.frameAt(System.nanoTime());
+                if (frame == lastFrame && !renderRequested) {
+                    waitUntil(clock.nanosOfFrame(frame + 1));
+                    continue;
+                }
+                lastFrame = frame;
+            } else {
+                lastFrame = Long.MIN_VALUE;
+                if (!renderRequested) {
+                    LockSupport.parkNanos(this, IDLE_REFRESH_NANOS);
+                    if (thread != self) break;
+                }
+            }
+            renderRequested = false;
+            renderOnce();
+        }
+    }
+
+    // 等待到目标时刻；提前唤醒时直接返回，由调用方重新计算
+    private void waitUntil(long targetNanos) {
+        long remaining = targetNanos - System.nanoTime();
+        if (remaining > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NANOS);
+            return;
+        }
+        while (System.nanoTime() < targetNanos && !renderRequested) {
+            Thread.yield();
+        }
+    }
+
+    private void renderOnce() {
+        BufferStrategy strategy = getBufferStrategy();
+        int width = getWidth();
+        int height = getHeight();
+        if (strategy == null || width <= 0 || height <= 0) return;
+        try {
+            do {
+                do {
+                    Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                    try {
+                        renderer.render(g, width, height);
+                    } finally {
+                        g.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            // 部分平台（如X11）需要同步，避免绘制命令积压导致卡顿
+            Toolkit.getDefaultToolkit().sync();
+        } catch (IllegalStateException e) {
+            // 画布已从窗口移除，缓冲区失效
+        }
+    }
+}
@@ -9,10 +9,13 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -53,6 +56,9 @@ public class AnimationPlayer extends JFrame {
     private JLabel frameLabel;
     private JLabel statusLabel;
     private JLabel fpsLabel;
+    private JLabel sequenceLabel;
+    private JComboBox<String> sequenceCombo; // 图集内多个动画序列切换
+    private boolean updatingSequenceCombo = false;
     
     // 新增UI组件
     private JMenuBar menuBar;
@@ -62,20 +68,19 @@ public class AnimationPlayer extends JFrame {
     private JSplitPane mainSplitPane;
     private JScrollPane treeScrollPane;
     private JScrollPane thumbnailsScrollPane;
-    private JPanel thumbnailsPanel;
+    private ThumbnailGrid thumbnailGrid;
     private boolean useThumbnailView = false;
     private boolean useThumbnailSummaryView = false;
     private java.util.List<PlistFileNode> plistNodeList = new java.util.ArrayList<>();
+    // 目录与图集文件路径 -> 树节点，仅在EDT访问；文件夹监视据此增量更新树
+    private final java.util.Map<Path, DefaultMutableTreeNode> directoryNodes = new java.util.HashMap<>();
+    private final java.util.Map<Path, DefaultMutableTreeNode> atlasNodes = new java.util.HashMap<>();
     private JPopupMenu viewModePopup;
     private JPanel rightPanel;
-    // 缩略图加载优化相关
-    private java.util.Map<String, BufferedImage> thumbnailCache = new java.util.HashMap<>();
-    private java.util.Map<String, JButton> thumbnailButtons = new java.util.HashMap<>();
-    private java.util.Set<String> scheduledThumbnails = new java.util.HashSet<>();
-    private java.util.concurrent.ExecutorService thumbnailExecutor = java.util.concurrent.Executors.newFixedThreadPool(4);
-    private ImageIcon placeholderIcon100;
-    // 扫描进度UI节流时间戳（毫秒）
-    private long lastProgressUpdateMs = 0L;
+    // 缩略图加载优化相关（生成线程与EDT并发访问）
+    private final ThumbnailCache thumbnailCache = new ThumbnailCache();
+    // 按与视口距离排序生成缩略图，滚动后离开范围的任务直接丢弃
+    private final ThumbnailScheduler thumbnailScheduler = new ThumbnailScheduler(this::loadThumbnail, this::onThumbnailLoaded);
     // 顶部菜单与右键菜单的显示方式单选项，用于状态同步
     private JRadioButtonMenuItem viewTreeModeItem;
     private JRadioButtonMenuItem viewThumbModeItem;
@@ -84,25 +89,72 @@ public class AnimationPlayer extends JFrame {
     private JRadioButtonMenuItem contextThumbModeItem;
     private JRadioButtonMenuItem contextSummaryModeItem;
     
-    private Timer animationTimer;
-    private List<PListParser.FrameInfo> frames;
-    private BufferedImage textureAtlas;
-    private int currentFrameIndex = 0;
-    private boolean isPlaying = false;
-    private int animationSpeed = 67; // 毫秒 (15fps = 1000/15 ≈ 67ms)
+    private PlaybackClock playbackClock;         // 基于nanoTime的播放时钟
+    private PlaybackScheduler playbackScheduler; // 按帧边界唤醒的播放调度线程
+    // 以下字段在主动渲染模式下也会被渲染线程读取
+    private volatile List<PListParser.FrameInfo> frames;
+    private PListParser.TextureAtlasInfo currentAtlasInfo;
+    private volatile BufferedImage textureAtlas;
+    private TextureRegistry.Lease textureLease;  // textureAtlas的租约，打开期间不被共享缓存淘汰
+    private volatile TexturePages texturePages; // multipack动画的纹理页，单页图集时为null
+    private volatile FrameCache frameCache;     // 当前图集的合成帧缓存
+    private volatile FramePrefetchRing prefetchRing; // 预取模式下播放位置前方的合成帧
+    private volatile int currentFrameIndex = 0;
+    private volatile boolean isPlaying = false;
+    private double playbackFps = 15.0; // 播放帧率，支持小数（如23.976）
     
-    // FPS计算相关
-    private long lastFrameTime = 0;
-    private double actualFps = 0.0;
+    // FPS计算相关：主动渲染时由渲染线程计数，重置在EDT，两者都在fpsLock内进行
+    private volatile double actualFps = 0.0;
+    private final Object fpsLock = new Object();
     private long frameCount = 0;
-    private long fpsStartTime = 0;
+    private long fpsStartNanos = 0;
     
     // 查看菜单控制变量
-    private boolean showInfoText = Const.APP_DEFAULT_SHOW_INFO_TEXT; // 控制信息文字显示
-    private boolean showSpriteBorder = Const.APP_DEFAULT_SHOW_SPRITE_BORDER; // 控制精灵边框显示
+    private volatile boolean showInfoText = Const.APP_DEFAULT_SHOW_INFO_TEXT; // 控制信息文字显示
+    private volatile boolean showSpriteBorder = Const.APP_DEFAULT_SHOW_SPRITE_BORDER; // 控制精灵边框显示
+    
+    // 帧渲染方式：预合成缓存（内存换速度）、直接从图集绘制（适合超大图集）
+    // 或只预取播放位置前方若干帧（适合全部烘焙放不进内存的超大动画）
+    private enum RenderMode { BAKED, DIRECT, STREAMING }
+    private volatile RenderMode renderMode = RenderMode.BAKED;
+    
+    // 主动渲染：由独立线程按播放时钟绘制到BufferStrategy，替代animationPanel
+    private ActiveRenderCanvas activeCanvas;
+    private volatile boolean activeRendering = false;
+    private final java.util.concurrent.atomic.AtomicBoolean activeUpdatePending = new java.util.concurrent.atomic.AtomicBoolean(false);
     
     // 当前文件路径
-    private String currentPlistPath = ""; // 存储当前打开的plist文件路径
+    private volatile String currentPlistPath = ""; // 存储当前打开的plist文件路径
+    
+    // 文件夹监视（查看 > 监视文件夹变化）：扫描完成后把磁盘上的变化增量应用到树与缩略图
+    private FolderWatcher folderWatcher;
+    private boolean watchFolderEnabled = true;
+    
+    // 目录清单：打开过的文件夹按清单立即显示，后台扫描校验；切换文件夹时递增代号，丢弃旧的校验结果
+    private FolderScanner catalogValidator;
+    private int folderGeneration = 0;
+    private LibraryCatalog libraryCatalog;
+    private Path libraryRoot;
+    
+    // 搜索：索引在后台建立，输入时过滤目录树与缩略图；searchMatches为null时未过滤
+    private JPanel leftPanel;
+    private JTextField searchField;
+    private LibraryIndex libraryIndex = LibraryIndex.EMPTY;
+    private int libraryIndexGeneration = 0;
+    private java.util.Set<String> searchMatches;
+    private DefaultMutableTreeNode filteredRoot;
+    
+    // 网格同步播放（查看 > 网格播放），为null时处于单动画播放
+    private GridPlaybackPanel gridPanel;
+    private JCheckBoxMenuItem gridModeItem;
+    
+    // 帧耗时分析（查看 > 性能分析）
+    private final FrameProfiler frameProfiler = new FrameProfiler();
+    private volatile boolean showProfiler = false;
+    
+    // 局部重绘：上一次重绘时帧与信息文字在面板上的区域
+    private Rectangle lastFrameBounds;
+    private Rectangle lastInfoTextBounds;
     
     // 记忆上次打开的目录
     private File lastOpenedDirectory = null; // 存储上次打开的目录位置
@@ -127,9 +179,14 @@ public class AnimationPlayer extends JFrame {
         // 创建右侧面板（动画播放区域）
         createRightPanel();
         
+        // 左侧：搜索框 + 目录树或缩略图
+        leftPanel = new JPanel(new BorderLayout());
+        leftPanel.add(createSearchBar(), BorderLayout.NORTH);
+        leftPanel.add(treeScrollPane, BorderLayout.CENTER);
+        
         // 创建主分割面板
         mainSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
-        mainSplitPane.setLeftComponent(treeScrollPane);
+        mainSplitPane.setLeftComponent(leftPanel);
         mainSplitPane.setRightComponent(rightPanel);
         mainSplitPane.setDividerLocation(250);
         mainSplitPane.setResizeWeight(0.0);
@@ -141,11 +198,21 @@ public class AnimationPlayer extends JFrame {
         pack(); // 根据组件的首选大小调整窗口
         setLocationRelativeTo(null); // 居中显示
         
-        // 初始化动画定时器
-        animationTimer = new Timer(animationSpeed, new ActionListener() {
+        // 初始化播放时钟与调度线程
+        playbackClock = new PlaybackClock(playbackFps);
+        playbackScheduler = new PlaybackScheduler(playbackClock, new PlaybackScheduler.FrameListener() {
             @Override
-            public void actionPerformed(ActionEvent e) {
-                nextFrame();
+            public void onFrame(long frameNumber) {
+                onPlaybackFrame(frameNumber);
+            }
+        });
+        
+        // 关闭窗口时先停下缩略图生成与文件夹监视，退出时写回索引不会与它们并发
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                thumbnailScheduler.dispose();
+                stopFolderWatcher();
             }
         });
         
@@ -235,7 +302,7 @@ public class AnimationPlayer extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 showInfoText = infoTextItem.isSelected();
-                animationPanel.repaint(); // 重新绘制面板
+                repaintAnimation(); // 重新绘制面板
             }
         });
         
@@ -245,7 +312,7 @@ public class AnimationPlayer extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 showSpriteBorder = spriteBorderItem.isSelected();
-                animationPanel.repaint(); // 重新绘制面板
+                repaintAnimation(); // 重新绘制面板
             }
         });
         
@@ -284,6 +351,106 @@ public class AnimationPlayer extends JFrame {
             }
         });
         viewMenu.add(displayModeMenu);
+        
+        // 渲染方式子菜单
+        JMenu renderModeMenu = new JMenu("渲染方式");
+        ButtonGroup renderGroup = new ButtonGroup();
+        JRadioButtonMenuItem bakedModeItem = new JRadioButtonMenuItem("预合成缓存", renderMode == RenderMode.BAKED);
+        JRadioButtonMenuItem directModeItem = new JRadioButtonMenuItem("直接从图集绘制", renderMode == RenderMode.DIRECT);
+        JRadioButtonMenuItem streamingModeItem = new JRadioButtonMenuItem("预取环形缓冲（超大动画）", renderMode == RenderMode.STREAMING);
+        renderGroup.add(bakedModeItem);
+        renderGroup.add(directModeItem);
+        renderGroup.add(streamingModeItem);
+        renderModeMenu.add(bakedModeItem);
+        renderModeMenu.add(directModeItem);
+        renderModeMenu.add(streamingModeItem);
+        bakedModeItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setRenderMode(RenderMode.BAKED);
+            }
+        });
+        directModeItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setRenderMode(RenderMode.DIRECT);
+            }
+        });
+        streamingModeItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setRenderMode(RenderMode.STREAMING);
+            }
+        });
+        viewMenu.add(renderModeMenu);
+        
+        // 主动渲染选项
+        JCheckBoxMenuItem activeRenderItem = new JCheckBoxMenuItem("主动渲染（高帧率）", activeRendering);
+        activeRenderItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setActiveRendering(activeRenderItem.isSelected());
+            }
+        });
+        viewMenu.add(activeRenderItem);
+        
+        // 网格播放：所选文件夹下的多个动画在同一时钟下同步播放
+        gridModeItem = new JCheckBoxMenuItem("网格播放（所选文件夹）", false);
+        gridModeItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setGridMode(gridModeItem.isSelected());
+            }
+        });
+        viewMenu.add(gridModeItem);
+        
+        // 文件夹监视：导出工具写出的新增、删除与修改直接反映到树与缩略图
+        JCheckBoxMenuItem watchFolderItem = new JCheckBoxMenuItem("监视文件夹变化", watchFolderEnabled);
+        watchFolderItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                watchFolderEnabled = watchFolderItem.isSelected();
+                if (watchFolderEnabled) {
+                    startFolderWatcher();
+                } else {
+                    stopFolderWatcher();
+                }
+            }
+        });
+        viewMenu.add(watchFolderItem);
+        viewMenu.addSeparator();
+        
+        // 性能分析叠加层与数据导出
+        JCheckBoxMenuItem profilerItem = new JCheckBoxMenuItem("性能分析", showProfiler);
+        profilerItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (profilerItem.isSelected()) {
+                    frameProfiler.clear();
+                }
+                showProfiler = profilerItem.isSelected();
+                repaintAnimation();
+            }
+        });
+        JMenuItem exportProfileItem = new JMenuItem("导出性能数据(CSV)...");
+        exportProfileItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportProfilerCsv();
+            }
+        });
+        JMenuItem cacheStatsItem = new JMenuItem("内存缓存统计...");
+        cacheStatsItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JOptionPane.showMessageDialog(AnimationPlayer.this,
+                        "纹理与合成帧: " + DecodedImageCache.getInstance() + "\n缩略图: " + thumbnailCache,
+                        "内存缓存统计", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+        viewMenu.add(profilerItem);
+        viewMenu.add(exportProfileItem);
+        viewMenu.add(cacheStatsItem);
         menuBar.add(viewMenu);
         
         // 添加5像素间距
@@ -384,13 +551,20 @@ public class AnimationPlayer extends JFrame {
         // 添加树节点选择监听器
         directoryTree.addTreeSelectionListener(e -> {
             DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) directoryTree.getLastSelectedPathComponent();
+            if (gridPanel != null) {
+                // 网格播放时选择文件夹（或文件所在文件夹）即重新加载网格
+                if (selectedNode != null) {
+                    loadGrid(selectedNode);
+                }
+                return;
+            }
             if (selectedNode != null && selectedNode.isLeaf()) {
                 Object userObject = selectedNode.getUserObject();
                 if (userObject instanceof PlistFileNode) {
                     loadPlistFile(selectedNode);
                 } else if (userObject instanceof String) {
                     String plistPath = (String) userObject;
-                    if (plistPath.endsWith(".plist")) {
+                    if (PListParser.isAtlasFile(new File(plistPath))) {
                         loadPlistFile(selectedNode);
                     }
                 }
@@ -439,7 +613,7 @@ public class AnimationPlayer extends JFrame {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                drawCurrentFrame(g);
+                drawCurrentFrame(g, getWidth(), getHeight());
             }
         };
         animationPanel.setPreferredSize(new Dimension(400, 400));
@@ -461,6 +635,25 @@ public class AnimationPlayer extends JFrame {
         rightPanel.add(controlPanel, BorderLayout.SOUTH);
     }
     
+    private void exportProfilerCsv() {
+        if (frameProfiler.getRecordedCount() == 0) {
+            JOptionPane.showMessageDialog(this, "没有性能数据，请先在 查看 > 性能分析 中开启并播放动画", "导出性能数据", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser(getDefaultStartDirectory());
+        fileChooser.setDialogTitle("导出性能数据");
+        fileChooser.setSelectedFile(new File("frame-profile.csv"));
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            try {
+                frameProfiler.writeCsv(file);
+                statusLabel.setText("性能数据已导出: " + file.getName());
+            } catch (java.io.IOException ex) {
+                statusLabel.setText("导出失败: " + ex.getMessage());
+            }
+        }
+    }
+    
     private void openFolder() {
         JFileChooser fileChooser = new JFileChooser(getDefaultStartDirectory());
         fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -482,9 +675,9 @@ public class AnimationPlayer extends JFrame {
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         fileChooser.setDialogTitle("选择plist文件");
         
-        // 设置文件过滤器，只显示.plist文件
+        // 设置文件过滤器，只显示图集描述文件（plist / TexturePacker JSON）
         javax.swing.filechooser.FileNameExtensionFilter filter = 
-            new javax.swing.filechooser.FileNameExtensionFilter("Plist文件 (*.plist)", "plist");
+            new javax.swing.filechooser.FileNameExtensionFilter("图集文件 (*.plist, *.json)", "plist", "json");
         fileChooser.setFileFilter(filter);
         
         int result = fileChooser.showOpenDialog(this);
@@ -561,8 +754,22 @@ public class AnimationPlayer extends JFrame {
         }
     }
     
+    /**
+     * 去掉文件扩展名作为显示名称
+     */
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+    
     private void updateTreeForSingleFile(File plistFile) {
         // 清空当前树
+        folderGeneration++;
+        cancelCatalogValidation();
+        stopFolderWatcher();
+        clearSearch();
+        directoryNodes.clear();
+        atlasNodes.clear();
         rootNode.removeAllChildren();
         
         // 设置根节点为文件所在的目录名
@@ -572,8 +779,7 @@ public class AnimationPlayer extends JFrame {
         
         // 创建文件节点
         String fileName = plistFile.getName();
-        String displayName = fileName.endsWith(".plist") ? 
-            fileName.substring(0, fileName.length() - 6) : fileName;
+        String displayName = stripExtension(fileName);
         
         PlistFileNode plistNode = new PlistFileNode(displayName, plistFile.getAbsolutePath());
         DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(plistNode);
@@ -592,6 +798,9 @@ public class AnimationPlayer extends JFrame {
         plistNodeList.clear();
         plistNodeList.add(plistNode);
         populateThumbnails(plistNodeList);
+        libraryRoot = parentDir != null ? parentDir.getAbsoluteFile().toPath() : null;
+        libraryCatalog = null;
+        rebuildLibraryIndex();
     }
     
     private void loadFolderStructure(File folder) {
@@ -600,13 +809,54 @@ public class AnimationPlayer extends JFrame {
             pause();
         }
         frames = null;
-        textureAtlas = null;
+        setTextureLease(null);
+        if (texturePages != null) {
+            texturePages.dispose();
+            texturePages = null;
+        }
+        if (frameCache != null) {
+            frameCache.dispose();
+            frameCache = null;
+        }
+        if (prefetchRing != null) {
+            prefetchRing.dispose();
+            prefetchRing = null;
+        }
+        currentAtlasInfo = null;
+        updateSequenceSelector();
         currentFrameIndex = 0;
-        lastFrameTime = 0;
         actualFps = 0.0;
-        animationPanel.repaint();
+        repaintAnimation();
         updateFrameLabel();
         
+        // 清空现有树结构与缩略图
+        folderGeneration++;
+        cancelCatalogValidation();
+        stopFolderWatcher();
+        clearSearch();
+        rootNode.removeAllChildren();
+        rootNode.setUserObject(folder.getName());
+        resetThumbnailLoadingState();
+        plistNodeList.clear();
+        treeModel.reload();
+        
+        // 父目录的扫描结果总是先于子目录到达
+        final Path rootPath = folder.getAbsoluteFile().toPath();
+        directoryNodes.clear();
+        atlasNodes.clear();
+        directoryNodes.put(rootPath, rootNode);
+        libraryRoot = rootPath;
+        
+        // 打开过的文件夹：按目录清单立即建出树与缩略图列表，再在后台扫描校验
+        LibraryCatalog catalog = LibraryCatalog.load(rootPath);
+        libraryCatalog = catalog;
+        if (catalog != null) {
+            addListingNodes(catalog.toListings());
+            finishFolderTree();
+            validateCatalog(rootPath, catalog);
+            return;
+        }
+        
         // 创建进度对话框
         JProgressBar progressBar = new JProgressBar();
         progressBar.setStringPainted(true);
@@ -629,393 +879,449 @@ public class AnimationPlayer extends JFrame {
         progressDialog.setSize(400, 120);
         progressDialog.setLocationRelativeTo(this);
         
-        // 用于控制扫描是否被取消
-        final boolean[] isCancelled = {false};
-        
-        // 在后台线程中执行文件扫描
-        SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
+        // 在后台线程池中并行扫描，结果成批回到EDT
+        final java.util.List<FolderScanner.Listing> scanned = new java.util.ArrayList<>();
+        final FolderScanner scanner = new FolderScanner(rootPath, new FolderScanner.Listener() {
             @Override
-            protected Void doInBackground() throws Exception {
-                // 清空现有树结构
-                SwingUtilities.invokeLater(() -> {
-                    rootNode.removeAllChildren();
-                    rootNode.setUserObject(folder.getName());
-                    // 重置缩略图加载状态
-                    resetThumbnailLoadingState();
-                });
-                plistNodeList.clear();
-                
-                // 递归扫描文件夹
-                scanDirectoryWithProgress(folder, rootNode, progressBar, isCancelled);
-                return null;
+            public void published(java.util.List<FolderScanner.Listing> batch) {
+                scanned.addAll(batch);
+                // 增量添加缩略图项（切到缩略图视图时即可看到逐步出现），扫描结束后按树顺序重排
+                for (PlistFileNode plistNode : addListingNodes(batch)) {
+                    addThumbnailItemIncremental(plistNode);
+                }
+                String path = batch.get(batch.size() - 1).directory.toString();
+                // 如果路径太长，显示省略号
+                if (path.length() > 50) {
+                    path = "..." + path.substring(path.length() - 47);
+                }
+                progressBar.setString("正在扫描: " + path);
             }
             
             @Override
-            protected void done() {
-                try {
-                    if (!isCancelled()) {
-                        get(); // 检查是否有异常
-                        
-                        // 刷新树显示
-                        SwingUtilities.invokeLater(() -> {
-                            treeModel.reload();
-                            directoryTree.expandRow(0);
-                            progressDialog.dispose();
-                            // 扫描完成后，缩略图已增量加入；触发一次可视区域调度
-                            scheduleVisibleThumbnails();
-                        });
-                    } else {
-                        // 取消操作，恢复原状态
-                        SwingUtilities.invokeLater(() -> {
-                            rootNode.removeAllChildren();
-                            treeModel.reload();
-                            progressDialog.dispose();
-                            thumbnailsPanel.removeAll();
-                            thumbnailsPanel.revalidate();
-                            thumbnailsPanel.repaint();
-                        });
-                    }
-                } catch (Exception e) {
-                    if (!isCancelled[0]) {
-                        e.printStackTrace();
-                        progressDialog.dispose();
-                        JOptionPane.showMessageDialog(AnimationPlayer.this, 
-                            "加载文件夹时出错: " + e.getMessage(), 
-                            "错误", JOptionPane.ERROR_MESSAGE);
-                    } else {
-                        progressDialog.dispose();
-                    }
+            public void finished(boolean cancelled) {
+                progressDialog.dispose();
+                if (cancelled) {
+                    // 取消操作，恢复原状态
+                    rootNode.removeAllChildren();
+                    directoryNodes.clear();
+                    atlasNodes.clear();
+                    treeModel.reload();
+                    thumbnailGrid.clear();
+                    return;
                 }
+                finishFolderTree();
+                startFolderWatcher();
+                // 首次打开：后台解析全部图集，写出目录清单供下次打开使用
+                saveCatalogInBackground(folderGeneration, rootPath, scanned, null);
             }
-        };
+        });
         
         // 取消按钮事件处理
         cancelButton.addActionListener(e -> {
-            isCancelled[0] = true;
-            worker.cancel(true);
+            scanner.cancel();
             progressDialog.dispose();
         });
         
-        worker.execute();
+        scanner.start();
         progressDialog.setVisible(true);
     }
     
-    private void scanDirectory(File directory, DefaultMutableTreeNode parentNode) {
-        File[] files = directory.listFiles();
-        if (files == null) return;
-        
-        // 对文件进行简单排序
-        java.util.Arrays.sort(files, new java.util.Comparator<File>() {
-            @Override
-            public int compare(File a, File b) {
-                // 先按类型排序：文件夹在前，文件在后
-                if (a.isDirectory() && !b.isDirectory()) {
-                    return -1;
-                } else if (!a.isDirectory() && b.isDirectory()) {
-                    return 1;
-                }
-                
-                // 同类型的按文件名排序
-                return a.getName().compareToIgnoreCase(b.getName());
-            }
-        });
-        
-        // 添加文件夹和文件
-        for (File file : files) {
-            if (file.isDirectory()) {
-                DefaultMutableTreeNode dirNode = new DefaultMutableTreeNode(file.getName());
+    // 按扫描结果（或目录清单）添加树节点，返回新建的plist节点
+    private java.util.List<PlistFileNode> addListingNodes(java.util.List<FolderScanner.Listing> listings) {
+        java.util.List<PlistFileNode> added = new java.util.ArrayList<>();
+        for (FolderScanner.Listing listing : listings) {
+            DefaultMutableTreeNode parentNode = directoryNodes.get(listing.directory);
+            if (parentNode == null) continue;
+            for (Path subdirectory : listing.subdirectories) {
+                DefaultMutableTreeNode dirNode = new DefaultMutableTreeNode(subdirectory.getFileName().toString());
                 parentNode.add(dirNode);
-                scanDirectory(file, dirNode);
-            } else if (file.isFile() && file.getName().toLowerCase().endsWith(".plist")) {
-                String fileName = file.getName();
+                directoryNodes.put(subdirectory, dirNode);
+            }
+            for (Path atlasFile : listing.atlasFiles) {
+                String fileName = atlasFile.getFileName().toString();
                 String displayName = fileName.substring(0, fileName.lastIndexOf('.'));
                 // 创建一个包含显示名称和完整路径的对象
-                PlistFileNode plistNode = new PlistFileNode(displayName, file.getAbsolutePath());
+                PlistFileNode plistNode = new PlistFileNode(displayName, atlasFile.toString());
                 DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(plistNode);
                 parentNode.add(fileNode);
+                atlasNodes.put(atlasFile, fileNode);
+                added.add(plistNode);
             }
         }
+        return added;
     }
     
-    private void scanDirectoryWithProgress(File directory, DefaultMutableTreeNode parentNode, JProgressBar progressBar, boolean[] isCancelled) {
-        // 检查是否被取消
-        if (isCancelled[0]) {
-            return;
+    // 树建好后按树顺序重建plist列表与缩略图（并行扫描的到达顺序与树顺序不同）
+    private void finishFolderTree() {
+        plistNodeList.clear();
+        collectPlistNodes(rootNode, plistNodeList);
+        treeModel.reload();
+        directoryTree.expandRow(0);
+        if (useThumbnailSummaryView) {
+            rebuildThumbnailsForSummaryMode();
+        } else {
+            populateThumbnails(visiblePlistNodes());
         }
-        
-        File[] files = directory.listFiles();
-        if (files == null) return;
-        
-        // 对文件进行简单排序
-        java.util.Arrays.sort(files, new java.util.Comparator<File>() {
+        scheduleVisibleThumbnails();
+        rebuildLibraryIndex();
+    }
+    
+    // 后台重新扫描，与目录清单比较后把差异增量应用到树上（只重新生成受影响的缩略图），再写回清单
+    private void validateCatalog(Path rootPath, LibraryCatalog catalog) {
+        final int generation = folderGeneration;
+        final java.util.List<FolderScanner.Listing> scanned = new java.util.ArrayList<>();
+        catalogValidator = new FolderScanner(rootPath, new FolderScanner.Listener() {
             @Override
-            public int compare(File a, File b) {
-                // 先按类型排序：文件夹在前，文件在后
-                if (a.isDirectory() && !b.isDirectory()) {
-                    return -1;
-                } else if (!a.isDirectory() && b.isDirectory()) {
-                    return 1;
-                }
-                
-                // 同类型的按文件名排序
-                return a.getName().compareToIgnoreCase(b.getName());
+            public void published(java.util.List<FolderScanner.Listing> batch) {
+                scanned.addAll(batch);
+            }
+            
+            @Override
+            public void finished(boolean cancelled) {
+                if (cancelled || generation != folderGeneration) return;
+                catalogValidator = null;
+                Thread t = new Thread(() -> {
+                    FolderWatcher.ChangeSet changes = catalog.diff(scanned);
+                    SwingUtilities.invokeLater(() -> {
+                        if (generation != folderGeneration) return;
+                        if (!changes.present.isEmpty() || !changes.removed.isEmpty()) {
+                            applyFolderChanges(changes);
+                        }
+                        // 校验完成后树与磁盘一致，再开始监视
+                        startFolderWatcher();
+                    });
+                    publishCatalog(generation, LibraryCatalog.build(rootPath, scanned, catalog));
+                }, "library-catalog");
+                t.setDaemon(true);
+                t.start();
             }
         });
-        
-        // 更新进度条显示当前扫描的目录完整路径（节流，避免EDT任务堆积）
-        if (shouldUpdateProgressUi()) {
-            SwingUtilities.invokeLater(() -> {
-                String path = directory.getAbsolutePath();
-                // 如果路径太长，显示省略号
-                if (path.length() > 50) {
-                    path = "..." + path.substring(path.length() - 47);
+        catalogValidator.start();
+    }
+    
+    private void cancelCatalogValidation() {
+        if (catalogValidator != null) {
+            catalogValidator.cancel();
+            catalogValidator = null;
+        }
+    }
+    
+    private void saveCatalogInBackground(int generation, Path rootPath, java.util.List<FolderScanner.Listing> scanned,
+                                         LibraryCatalog previous) {
+        Thread t = new Thread(() -> publishCatalog(generation, LibraryCatalog.build(rootPath, scanned, previous)),
+                "library-catalog");
+        t.setDaemon(true);
+        t.start();
+    }
+    
+    // 在后台线程写出新清单；仍是同一文件夹时用清单中的纹理与序列信息重建搜索索引
+    private void publishCatalog(int generation, LibraryCatalog catalog) {
+        catalog.save();
+        SwingUtilities.invokeLater(() -> {
+            if (generation != folderGeneration) return;
+            libraryCatalog = catalog;
+            rebuildLibraryIndex();
+        });
+    }
+    
+    private void startFolderWatcher() {
+        stopFolderWatcher();
+        if (!watchFolderEnabled || directoryNodes.isEmpty()) return;
+        try {
+            folderWatcher = new FolderWatcher(this::applyFolderChanges);
+            folderWatcher.start(directoryNodes.keySet());
+        } catch (java.io.IOException e) {
+            System.out.println("无法监视文件夹: " + e.getMessage());
+        }
+    }
+    
+    private void stopFolderWatcher() {
+        if (folderWatcher != null) {
+            folderWatcher.close();
+            folderWatcher = null;
+        }
+    }
+    
+    // 在EDT应用一批磁盘变化：增删树节点与缩略图项，变化的图集与纹理相关的缓存失效，只重新生成受影响的缩略图
+    private void applyFolderChanges(FolderWatcher.ChangeSet changes) {
+        boolean structureChanged = false;
+        java.util.Set<Path> changedAtlases = new java.util.LinkedHashSet<>();
+        java.util.Set<Path> changedTextures = new java.util.LinkedHashSet<>();
+        
+        for (Path path : changes.removed) {
+            if (removeTreeNode(path)) {
+                structureChanged = true;
+            } else if (TextureIndex.isTextureName(path.getFileName().toString().toLowerCase())) {
+                changedTextures.add(path);
+            }
+        }
+        // 事件溢出的目录：树中有而磁盘上已不存在的节点移除
+        for (Path directory : changes.overflowed) {
+            java.util.List<Path> children = new java.util.ArrayList<>();
+            for (Path path : directoryNodes.keySet()) {
+                if (directory.equals(path.getParent())) children.add(path);
+            }
+            for (Path path : atlasNodes.keySet()) {
+                if (directory.equals(path.getParent())) children.add(path);
+            }
+            for (Path path : children) {
+                if (!java.nio.file.Files.exists(path) && removeTreeNode(path)) {
+                    structureChanged = true;
                 }
-                progressBar.setString("正在扫描: " + path);
-            });
+            }
+        }
+        for (java.util.Map.Entry<Path, Boolean> entry : changes.present.entrySet()) {
+            Path path = entry.getKey();
+            if (entry.getValue()) {
+                if (!directoryNodes.containsKey(path) && insertDirectoryNode(path)) {
+                    structureChanged = true;
+                }
+            } else if (atlasNodes.containsKey(path)) {
+                changedAtlases.add(path);
+            } else if (PListParser.isAtlasFile(path.toFile())) {
+                if (insertAtlasNode(path)) {
+                    structureChanged = true;
+                }
+            } else {
+                changedTextures.add(path);
+            }
         }
         
-        // 添加文件夹和文件
-        for (File file : files) {
-            if (isCancelled[0]) return; // 检查取消状态
-            
-            if (file.isDirectory()) {
-                DefaultMutableTreeNode dirNode = new DefaultMutableTreeNode(file.getName());
-                SwingUtilities.invokeLater(() -> {
-                    parentNode.add(dirNode);
-                });
-                scanDirectoryWithProgress(file, dirNode, progressBar, isCancelled);
-            } else if (file.isFile() && file.getName().toLowerCase().endsWith(".plist")) {
-                String fileName = file.getName();
-                String displayName = fileName.substring(0, fileName.lastIndexOf('.'));
-                // 创建一个包含显示名称和完整路径的对象
-                PlistFileNode plistNode = new PlistFileNode(displayName, file.getAbsolutePath());
-                DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(plistNode);
-                SwingUtilities.invokeLater(() -> {
-                    parentNode.add(fileNode);
-                    plistNodeList.add(plistNode);
-                    // 增量添加缩略图项（切到缩略图视图时即可看到逐步出现）
-                    addThumbnailItemIncremental(plistNode);
-                    thumbnailsPanel.revalidate();
-                    thumbnailsPanel.repaint();
-                });
+        for (Path texture : changedTextures) {
+            TextureRegistry.getInstance().invalidate(texture.toFile());
+            TextureIndex.invalidate(texture.getParent().toFile());
+            collectAtlasesUsingTexture(texture, changes.present.containsKey(texture), changedAtlases);
+        }
+        
+        boolean reloadCurrent = false;
+        for (Path atlas : changedAtlases) {
+            File atlasFile = atlas.toFile();
+            AtlasCache.getInstance().invalidate(atlasFile);
+            // 纹理变化时plist本身未变，磁盘上的缩略图也要丢弃
+            ThumbnailStore.getInstance().invalidate(atlasFile);
+            thumbnailCache.remove(atlas.toString());
+            thumbnailGrid.repaintItem(atlas.toString());
+            if (atlas.toString().equals(currentPlistPath)) {
+                reloadCurrent = true;
             }
         }
         
-        // 添加小延迟以便用户能看到进度更新
-        try {
-            Thread.sleep(1);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            isCancelled[0] = true; // 标记为取消
+        if (structureChanged) {
+            plistNodeList.clear();
+            collectPlistNodes(rootNode, plistNodeList);
+            if (useThumbnailSummaryView) {
+                rebuildThumbnailsForSummaryMode();
+            } else {
+                populateThumbnails(visiblePlistNodes());
+            }
+            rebuildLibraryIndex();
+        }
+        scheduleVisibleThumbnails();
+        
+        // 正在播放的动画被修改：重新加载（网格播放时不打断）
+        if (reloadCurrent && gridPanel == null) {
+            loadSinglePlistFile(new File(currentPlistPath));
         }
     }
-
-    // 进度UI更新节流：至少间隔120ms再更新一次，避免EDT积压
-    private boolean shouldUpdateProgressUi() {
-        long now = System.currentTimeMillis();
-        if (now - lastProgressUpdateMs >= 120) {
-            lastProgressUpdateMs = now;
-            return true;
+    
+    // 同目录下解析到该纹理的图集；纹理被删除时无法得知原先的对应关系，目录内的图集全部算作受影响
+    private void collectAtlasesUsingTexture(Path texture, boolean exists, java.util.Set<Path> out) {
+        DefaultMutableTreeNode dirNode = directoryNodes.get(texture.getParent());
+        if (dirNode == null) return;
+        String textureName = texture.getFileName().toString();
+        for (int i = 0; i < dirNode.getChildCount(); i++) {
+            Object userObject = ((DefaultMutableTreeNode) dirNode.getChildAt(i)).getUserObject();
+            if (!(userObject instanceof PlistFileNode)) continue;
+            File atlasFile = new File(((PlistFileNode) userObject).getFilePath());
+            boolean affected = !exists;
+            if (!affected) {
+                try {
+                    File resolved = TextureFiles.find(atlasFile, AtlasCache.getInstance().get(atlasFile));
+                    affected = resolved == null || resolved.getName().equalsIgnoreCase(textureName);
+                } catch (Exception e) {
+                    affected = true;
+                }
+            }
+            if (affected) {
+                out.add(atlasFile.toPath());
+            }
         }
-        return false;
     }
-
+    
+    private boolean insertDirectoryNode(Path directory) {
+        DefaultMutableTreeNode parentNode = directoryNodes.get(directory.getParent());
+        if (parentNode == null) return false;
+        DefaultMutableTreeNode dirNode = new DefaultMutableTreeNode(directory.getFileName().toString());
+        insertSorted(parentNode, dirNode, true);
+        directoryNodes.put(directory, dirNode);
+        return true;
+    }
+    
+    private boolean insertAtlasNode(Path atlasFile) {
+        DefaultMutableTreeNode parentNode = directoryNodes.get(atlasFile.getParent());
+        if (parentNode == null) return false;
+        PlistFileNode plistNode = new PlistFileNode(stripExtension(atlasFile.getFileName().toString()), atlasFile.toString());
+        DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(plistNode);
+        insertSorted(parentNode, fileNode, false);
+        atlasNodes.put(atlasFile, fileNode);
+        return true;
+    }
+    
+    // 与扫描结果相同的顺序：子目录在前、图集在后，各自按名称排序（不区分大小写）
+    private void insertSorted(DefaultMutableTreeNode parentNode, DefaultMutableTreeNode child, boolean directory) {
+        int index = 0;
+        while (index < parentNode.getChildCount()) {
+            DefaultMutableTreeNode sibling = (DefaultMutableTreeNode) parentNode.getChildAt(index);
+            boolean siblingIsDirectory = !(sibling.getUserObject() instanceof PlistFileNode);
+            if (directory && !siblingIsDirectory) break;
+            if (directory == siblingIsDirectory && sibling.toString().compareToIgnoreCase(child.toString()) > 0) break;
+            index++;
+        }
+        treeModel.insertNodeInto(child, parentNode, index);
+    }
+    
+    // 移除图集或目录（连同其下所有节点），并清理相关缓存
+    private boolean removeTreeNode(Path path) {
+        DefaultMutableTreeNode node = atlasNodes.remove(path);
+        if (node == null) {
+            node = directoryNodes.get(path);
+            if (node == null || node == rootNode) return false;
+            directoryNodes.keySet().removeIf(p -> p.startsWith(path));
+            java.util.List<Path> removedAtlases = new java.util.ArrayList<>();
+            for (Path atlas : atlasNodes.keySet()) {
+                if (atlas.startsWith(path)) removedAtlases.add(atlas);
+            }
+            for (Path atlas : removedAtlases) {
+                atlasNodes.remove(atlas);
+                forgetAtlas(atlas);
+            }
+        } else {
+            forgetAtlas(path);
+        }
+        treeModel.removeNodeFromParent(node);
+        return true;
+    }
+    
+    private void forgetAtlas(Path atlas) {
+        AtlasCache.getInstance().invalidate(atlas.toFile());
+        thumbnailCache.remove(atlas.toString());
+    }
+    
+    // 按树的先序遍历收集所有plist节点
+    private void collectPlistNodes(DefaultMutableTreeNode node, java.util.List<PlistFileNode> out) {
+        java.util.Enumeration<?> nodes = node.preorderEnumeration();
+        while (nodes.hasMoreElements()) {
+            Object userObject = ((DefaultMutableTreeNode) nodes.nextElement()).getUserObject();
+            if (userObject instanceof PlistFileNode) {
+                out.add((PlistFileNode) userObject);
+            }
+        }
+    }
+    
     private void refreshThumbnailsFromTree() {
         // 根据当前树中记录的plistNodeList刷新缩略图
         if (useThumbnailSummaryView) {
             rebuildThumbnailsForSummaryMode();
         } else {
-            populateThumbnails(plistNodeList);
+            populateThumbnails(visiblePlistNodes());
         }
         if (useThumbnailView) {
             switchToThumbnailView();
         }
     }
 
-    // 复用的100x100占位图标，避免每次都在EDT绘制
-    private ImageIcon getPlaceholderIcon100() {
-        if (placeholderIcon100 == null) {
-            BufferedImage placeholder = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g = placeholder.createGraphics();
-            g.setColor(new Color(220, 220, 220));
-            g.fillRect(0, 0, 100, 100);
-            g.setColor(new Color(180, 180, 180));
-            g.drawRect(0, 0, 99, 99);
-            g.setColor(Color.DARK_GRAY);
-            g.drawString("加载中...", 20, 54);
-            g.dispose();
-            placeholderIcon100 = new ImageIcon(placeholder);
-        }
-        return placeholderIcon100;
-    }
-
     private void populateThumbnails(java.util.List<PlistFileNode> nodes) {
         resetThumbnailLoadingState();
-        // 增量添加，避免一次性在EDT创建海量组件阻塞
+        java.util.List<ThumbnailGrid.Item> items = new java.util.ArrayList<>(nodes.size());
         for (PlistFileNode node : nodes) {
-            addThumbnailItemIncremental(node);
+            items.add(new ThumbnailGrid.Item(node.getFilePath(), node.getDisplayName()));
         }
-        thumbnailsPanel.revalidate();
-        thumbnailsPanel.repaint();
+        thumbnailGrid.setItems(items);
         // 首屏与可视范围懒加载
         scheduleVisibleThumbnails();
     }
-
+    
     private void resetThumbnailLoadingState() {
-        scheduledThumbnails.clear();
-        thumbnailButtons.clear();
-        // 取消并重建线程池
-        thumbnailExecutor.shutdownNow();
-        thumbnailExecutor = java.util.concurrent.Executors.newFixedThreadPool(4);
-        thumbnailsPanel.removeAll();
+        // 丢弃尚未开始的生成任务
+        thumbnailScheduler.clear();
+        thumbnailGrid.clear();
     }
 
     private void addThumbnailItemIncremental(PlistFileNode node) {
-        final String plistPath = node.getFilePath();
-        final String displayName = node.getDisplayName();
-        if (thumbnailButtons.containsKey(plistPath)) return;
-
-        JButton thumbButton = new JButton(displayName);
-        thumbButton.setPreferredSize(new Dimension(120, 140));
-        thumbButton.setHorizontalTextPosition(SwingConstants.CENTER);
-        thumbButton.setVerticalTextPosition(SwingConstants.BOTTOM);
-        thumbButton.setIconTextGap(6);
-        thumbButton.putClientProperty("plistPath", plistPath);
-        thumbButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                loadSinglePlistFile(new File(plistPath));
-            }
-        });
-        thumbButton.setIcon(getPlaceholderIcon100());
-
-        thumbnailsPanel.add(thumbButton);
-        thumbnailButtons.put(plistPath, thumbButton);
-
-        // 首屏优先加载，其他懒加载
-        if (thumbnailsPanel.getComponentCount() <= 24) {
-            scheduleThumbnailGeneration(plistPath, thumbButton);
+        thumbnailGrid.addItem(new ThumbnailGrid.Item(node.getFilePath(), node.getDisplayName()));
+        // 首屏在扫描过程中就开始加载，其他懒加载
+        if (thumbnailGrid.getItemCount() <= 24) {
+            scheduleVisibleThumbnails();
         }
     }
-
-    private void scheduleThumbnailGeneration(String plistPath, JButton button) {
-        // 已有缓存直接应用
-        BufferedImage cached = thumbnailCache.get(plistPath);
-        if (cached != null) {
-            button.setIcon(new ImageIcon(cached));
-            return;
-        }
-        // 已在队列则跳过
-        if (!scheduledThumbnails.add(plistPath)) return;
-
-        thumbnailExecutor.submit(() -> {
-            try {
-                BufferedImage img = generateThumbnailForPlist(new File(plistPath), 100);
-                if (img != null) {
-                    thumbnailCache.put(plistPath, img);
-                    SwingUtilities.invokeLater(() -> {
-                        JButton b = thumbnailButtons.get(plistPath);
-                        if (b != null) {
-                            b.setIcon(new ImageIcon(img));
-                            b.revalidate();
-                            b.repaint();
-                        }
-                    });
-                }
-            } catch (Exception ignore) {
+    
+    // 在缩略图工作线程调用：先查磁盘存储，未命中再解析图集生成并写回
+    private BufferedImage loadThumbnail(String plistPath) {
+        File plistFile = new File(plistPath);
+        BufferedImage img = ThumbnailStore.getInstance().get(plistFile);
+        if (img == null) {
+            img = generateThumbnailForPlist(plistFile, ThumbnailStore.THUMB_SIZE);
+            if (img != null) {
+                ThumbnailStore.getInstance().put(plistFile, img);
             }
-        });
+        }
+        return img;
     }
-
+    
+    private void onThumbnailLoaded(String plistPath, BufferedImage img) {
+        thumbnailCache.put(plistPath, img);
+        SwingUtilities.invokeLater(() -> thumbnailGrid.repaintItem(plistPath));
+    }
+    
     private void scheduleVisibleThumbnails() {
-        Rectangle vis = thumbnailsPanel.getVisibleRect();
-        for (Component comp : thumbnailsPanel.getComponents()) {
-            if (!(comp instanceof JButton)) continue;
-            JButton btn = (JButton) comp;
-            Object prop = btn.getClientProperty("plistPath");
-            if (!(prop instanceof String)) continue;
-            String path = (String) prop;
-            if (vis.intersects(btn.getBounds())) {
-                if (!thumbnailCache.containsKey(path)) {
-                    scheduleThumbnailGeneration(path, btn);
-                }
+        Rectangle vis = thumbnailGrid.getVisibleRect();
+        if (vis.isEmpty()) return;
+        // 上下各预取一屏；格子序号与位置均按算术计算，开销与文件总数无关
+        Rectangle prefetch = new Rectangle(vis.x, vis.y - vis.height, vis.width, vis.height * 3);
+        int[] visible = thumbnailGrid.getIndexRange(vis);
+        int[] range = thumbnailGrid.getIndexRange(prefetch);
+        java.util.Map<String, Long> wanted = new java.util.LinkedHashMap<>();
+        for (int i = visible[0]; i < visible[1]; i++) {
+            String path = thumbnailGrid.getItem(i).path;
+            // 磁盘存储的查找需要规范化路径并读取文件属性，网络盘上很慢，交给工作线程
+            if (!thumbnailCache.contains(path)) {
+                wanted.put(path, 0L);
+            }
+        }
+        for (int i = range[0]; i < range[1]; i++) {
+            if (i >= visible[0] && i < visible[1]) continue;
+            String path = thumbnailGrid.getItem(i).path;
+            if (!thumbnailCache.contains(path)) {
+                // 优先级为与可视区域的纵向距离
+                Rectangle bounds = thumbnailGrid.getCellBounds(i);
+                long distance = bounds.y >= vis.y ? bounds.y - (vis.y + vis.height) : vis.y - (bounds.y + bounds.height);
+                wanted.put(path, Math.max(1L, distance));
             }
         }
+        thumbnailScheduler.update(wanted);
     }
 
     private BufferedImage generateThumbnailForPlist(File plistFile, int thumbSize) {
         try {
-            PListParser.TextureAtlasInfo atlasInfo = PListParser.parsePList(plistFile);
+            PListParser.TextureAtlasInfo atlasInfo = AtlasCache.getInstance().get(plistFile);
             java.util.List<PListParser.FrameInfo> frameList = atlasInfo.getFramesInOrder();
-            File parentDir = plistFile.getParentFile();
 
             // 查找同名纹理图集
-            String baseName = plistFile.getName().substring(0, plistFile.getName().lastIndexOf('.'));
-            File[] possibleTextures = parentDir.listFiles((dir, name) -> {
-                String lowerName = name.toLowerCase();
-                return (lowerName.startsWith(baseName.toLowerCase()) &&
-                        (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") ||
-                         lowerName.endsWith(".jpeg") || lowerName.endsWith(".dds")));
-            });
-
-            if (possibleTextures == null || possibleTextures.length == 0) {
+            File textureFile = TextureFiles.find(plistFile, atlasInfo);
+            if (textureFile == null) {
                 return null;
             }
-
-            BufferedImage atlas;
-            String texturePath = possibleTextures[0].getAbsolutePath();
-            if (texturePath.toLowerCase().endsWith(".dds")) {
-                atlas = DDSImageLoader.loadDDS(possibleTextures[0]);
-            } else {
-                atlas = javax.imageio.ImageIO.read(new File(texturePath));
-            }
+            // 与播放器共用注册表：点击缩略图打开时直接复用这里解码的纹理
+            BufferedImage atlas = TextureFiles.loadCached(textureFile);
 
             BufferedImage preview;
-            if (frameList != null && !frameList.isEmpty()) {
-                PListParser.FrameInfo first = frameList.get(0);
-                Rectangle frameRect = first.frame;
-                if (frameRect == null) return null;
-
-                int atlasWidth = atlas.getWidth();
-                int atlasHeight = atlas.getHeight();
-                int startX = frameRect.x;
-                int startY = frameRect.y;
-                int cropWidth = first.rotated ? frameRect.height : frameRect.width;
-                int cropHeight = first.rotated ? frameRect.width : frameRect.height;
-
-                int safeX = Math.max(0, Math.min(startX, atlasWidth - 1));
-                int safeY = Math.max(0, Math.min(startY, atlasHeight - 1));
-                int safeWidth = Math.min(cropWidth, atlasWidth - safeX);
-                int safeHeight = Math.min(cropHeight, atlasHeight - safeY);
-
-                BufferedImage extracted = atlas.getSubimage(safeX, safeY, safeWidth, safeHeight);
-                BufferedImage finalFrame;
-                if (first.rotated) {
-                    BufferedImage tempCopy = new BufferedImage(extracted.getWidth(), extracted.getHeight(), BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D tg = tempCopy.createGraphics();
-                    tg.drawImage(extracted, 0, 0, null);
-                    tg.dispose();
-                    finalFrame = rotateImage(tempCopy, -90);
-                } else {
-                    finalFrame = new BufferedImage(extracted.getWidth(), extracted.getHeight(), BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D cg = finalFrame.createGraphics();
-                    cg.drawImage(extracted, 0, 0, null);
-                    cg.dispose();
-                }
-
-                int canvasWidth = first.sourceSize != null ? first.sourceSize.width : finalFrame.getWidth();
-                int canvasHeight = first.sourceSize != null ? first.sourceSize.height : finalFrame.getHeight();
-                BufferedImage canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D g = canvas.createGraphics();
-                g.setComposite(AlphaComposite.SrcOver);
-                int drawX = 0, drawY = 0;
-                if (first.sourceColorRect != null) {
-                    drawX += first.sourceColorRect.x;
-                    drawY += first.sourceColorRect.y;
-                }
-                g.drawImage(finalFrame, drawX, drawY, null);
-                g.dispose();
-                preview = canvas;
+            java.util.Map<String, PListParser.AnimationSequence> sequences = atlasInfo.getSequences();
+            if (sequences.size() > 1) {
+                // 多个动画序列：每个序列取首帧，排成网格
+                return composeSequenceThumbnail(atlas, sequences, thumbSize);
+            } else if (frameList != null && !frameList.isEmpty()) {
+                preview = FrameCompositor.compose(atlas, frameList.get(0));
+                if (preview == null) return null;
             } else {
                 // 没有帧信息则使用整张图集缩略图
                 preview = atlas;
@@ -1040,82 +1346,58 @@ public class AnimationPlayer extends JFrame {
             return null;
         }
     }
-    
-    private void loadPlistFile(DefaultMutableTreeNode node) {
-        // 获取文件路径和显示名称
-        String plistPath;
-        String displayName;
-        
+
+    /**
+     * 为多序列图集生成缩略图：最多9个序列，每格显示该序列首帧
+     */
+    private BufferedImage composeSequenceThumbnail(BufferedImage atlas, java.util.Map<String, PListParser.AnimationSequence> sequences, int thumbSize) {
+        int cells = Math.min(sequences.size(), 9);
+        int columns = (int) Math.ceil(Math.sqrt(cells));
+        int cellSize = thumbSize / columns;
+        BufferedImage canvas = new BufferedImage(thumbSize, thumbSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        int index = 0;
+        for (PListParser.AnimationSequence sequence : sequences.values()) {
+            if (index >= cells) break;
+            if (!sequence.frames.isEmpty()) {
+                BufferedImage preview = FrameCompositor.compose(atlas, sequence.frames.get(0));
+                if (preview != null) {
+                    int w = preview.getWidth();
+                    int h = preview.getHeight();
+                    double scale = (double) (cellSize - 2) / Math.max(w, h);
+                    int nw = (int) Math.max(1, Math.round(w * scale));
+                    int nh = (int) Math.max(1, Math.round(h * scale));
+                    int cellX = (index % columns) * cellSize;
+                    int cellY = (index / columns) * cellSize;
+                    g.drawImage(preview, cellX + (cellSize - nw) / 2, cellY + (cellSize - nh) / 2, nw, nh, null);
+                }
+            }
+            index++;
+        }
+        g.dispose();
+        return canvas;
+    }
+
+    private void loadPlistFile(DefaultMutableTreeNode node) {
+        // 获取文件路径
+        String plistPath;
+        
         Object userObject = node.getUserObject();
         if (userObject instanceof PlistFileNode) {
-            PlistFileNode plistNode = (PlistFileNode) userObject;
-            plistPath = plistNode.getFilePath();
-            displayName = plistNode.getDisplayName();
+            plistPath = ((PlistFileNode) userObject).getFilePath();
         } else {
             // 兼容旧的字符串格式
             plistPath = userObject.toString();
-            String fileName = new File(plistPath).getName();
-            displayName = fileName.endsWith(".plist") ? 
-                fileName.substring(0, fileName.length() - 6) : fileName;
         }
         
-        // 停止当前播放
-        if (isPlaying) {
-            pause();
-        }
-        
-        try {
-            // 加载新的plist文件
-            File plistFile = new File(plistPath);
-            File parentDir = plistFile.getParentFile();
-            
-            // 设置当前文件路径
-            currentPlistPath = plistPath;
-            
-            // 解析plist文件
-            PListParser.TextureAtlasInfo atlasInfo = PListParser.parsePList(plistFile);
-            frames = atlasInfo.getFramesInOrder();
-            
-            // 查找对应的纹理图集文件
-            String baseName = plistFile.getName().substring(0, plistFile.getName().lastIndexOf('.'));
-            File[] possibleTextures = parentDir.listFiles((dir, name) -> {
-                String lowerName = name.toLowerCase();
-                return (lowerName.startsWith(baseName.toLowerCase()) && 
-                       (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") || 
-                        lowerName.endsWith(".jpeg") || lowerName.endsWith(".dds")));
-            });
-            
-            if (possibleTextures != null && possibleTextures.length > 0) {
-                String texturePath = possibleTextures[0].getAbsolutePath();
-                if (texturePath.toLowerCase().endsWith(".dds")) {
-                    textureAtlas = DDSImageLoader.loadDDS(possibleTextures[0]);
-                } else {
-                    textureAtlas = javax.imageio.ImageIO.read(new File(texturePath));
-                }
-            }
-            
-            // 重置播放状态
-            currentFrameIndex = 0;
-            isPlaying = false;
-            
-            // 更新UI
-            updateFrameLabel();
-            animationPanel.repaint();
-            
-            statusLabel.setText("已加载: " + displayName + " (" + frames.size() + " 帧)");
-            
-            // 自动开始播放动画
-            if (frames != null && !frames.isEmpty()) {
-                play();
-            }
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            statusLabel.setText("加载失败: " + e.getMessage());
-        }
+        loadSinglePlistFile(new File(plistPath));
     }
     
     private void loadSinglePlistFile(File plistFile) {
+        // 打开单个文件时退出网格播放
+        setGridMode(false);
+        
         // 停止当前播放
         if (isPlaying) {
             pause();
@@ -1125,42 +1407,53 @@ public class AnimationPlayer extends JFrame {
             // 获取文件信息
             String plistPath = plistFile.getAbsolutePath();
             String fileName = plistFile.getName();
-            String displayName = fileName.endsWith(".plist") ? 
-                fileName.substring(0, fileName.length() - 6) : fileName;
-            File parentDir = plistFile.getParentFile();
+            String displayName = stripExtension(fileName);
             
             // 设置当前文件路径
             currentPlistPath = plistPath;
             
-            // 解析plist文件
-            PListParser.TextureAtlasInfo atlasInfo = PListParser.parsePList(plistFile);
-            frames = atlasInfo.getFramesInOrder();
-            
-            // 查找对应的纹理图集文件
-            String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
-            File[] possibleTextures = parentDir.listFiles((dir, name) -> {
-                String lowerName = name.toLowerCase();
-                return (lowerName.startsWith(baseName.toLowerCase()) && 
-                       (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") || 
-                        lowerName.endsWith(".jpeg") || lowerName.endsWith(".dds")));
-            });
+            // 释放上一个动画的纹理页
+            if (texturePages != null) {
+                texturePages.dispose();
+                texturePages = null;
+            }
             
-            if (possibleTextures != null && possibleTextures.length > 0) {
-                String texturePath = possibleTextures[0].getAbsolutePath();
-                if (texturePath.toLowerCase().endsWith(".dds")) {
-                    textureAtlas = DDSImageLoader.loadDDS(possibleTextures[0]);
-                } else {
-                    textureAtlas = javax.imageio.ImageIO.read(new File(texturePath));
+            // multipack：一个逻辑动画分布在多个图集页上，纹理按需并发解码
+            MultipackAtlas multipack = MultipackAtlas.detect(plistFile);
+            PListParser.TextureAtlasInfo atlasInfo;
+            if (multipack != null) {
+                atlasInfo = multipack.atlasInfo;
+                texturePages = multipack.pages;
+                setTextureLease(null);
+                displayName = multipack.name + " [" + multipack.pageFiles.size() + "页]";
+            } else {
+                // 解析plist文件
+                atlasInfo = AtlasCache.getInstance().get(plistFile);
+                
+                // 查找对应的纹理图集文件
+                File textureFile = TextureFiles.find(plistFile, atlasInfo);
+                if (textureFile != null) {
+                    setTextureLease(TextureRegistry.getInstance().acquire(textureFile));
                 }
             }
+            frames = atlasInfo.getFramesInOrder();
+            currentAtlasInfo = atlasInfo;
+            updateSequenceSelector();
+            
+            // 为新图集建立合成帧缓存，并在后台按播放顺序预先烘焙
+            rebuildFrameCache();
             
             // 重置播放状态
             currentFrameIndex = 0;
             isPlaying = false;
+            retainPagesNearPlayhead();
+            if (frameCache != null) {
+                frameCache.prebakeAsync(frames, 0);
+            }
             
             // 更新UI
             updateFrameLabel();
-            animationPanel.repaint();
+            repaintAnimation();
             
             statusLabel.setText("已加载: " + displayName + " (" + frames.size() + " 帧)");
             
@@ -1175,6 +1468,82 @@ public class AnimationPlayer extends JFrame {
         }
     }
     
+    /**
+     * 获取帧所在的纹理：multipack时取对应页（未就绪返回null），否则为当前图集
+     */
+    private BufferedImage getAtlasForFrame(PListParser.FrameInfo frame) {
+        if (texturePages != null) {
+            return texturePages.getIfReady(frame.atlasIndex);
+        }
+        return textureAtlas;
+    }
+    
+    /**
+     * 换用新的图集纹理并释放旧纹理的租约；lease为null时清空
+     */
+    private void setTextureLease(TextureRegistry.Lease lease) {
+        if (textureLease != null) {
+            textureLease.release();
+        }
+        textureLease = lease;
+        textureAtlas = lease != null ? lease.image : null;
+    }
+    
+    /**
+     * 按当前渲染方式重建合成帧缓存或预取缓冲；直接绘制模式下不保留任何合成帧
+     */
+    private void rebuildFrameCache() {
+        if (frameCache != null) {
+            frameCache.dispose();
+            frameCache = null;
+        }
+        if (prefetchRing != null) {
+            prefetchRing.dispose();
+            prefetchRing = null;
+        }
+        if (textureAtlas == null && texturePages == null) {
+            return;
+        }
+        final BufferedImage atlas = textureAtlas;
+        final TexturePages pages = texturePages;
+        FrameCache.AtlasSource source = frame -> pages != null ? pages.getIfReady(frame.atlasIndex) : atlas;
+        if (renderMode == RenderMode.BAKED) {
+            frameCache = new FrameCache(source);
+        } else if (renderMode == RenderMode.STREAMING) {
+            prefetchRing = new FramePrefetchRing(source, playbackClock);
+            prefetchRing.setFrames(frames);
+        }
+    }
+    
+    private void setRenderMode(RenderMode mode) {
+        if (renderMode == mode) return;
+        renderMode = mode;
+        rebuildFrameCache();
+        if (frameCache != null && frames != null) {
+            frameCache.prebakeAsync(frames, currentFrameIndex);
+        }
+        repaintAnimation();
+    }
+    
+    /**
+     * multipack时只保留播放位置前后若干帧用到的纹理页
+     */
+    private void retainPagesNearPlayhead() {
+        if (texturePages == null || frames == null || frames.isEmpty()) {
+            return;
+        }
+        java.util.Set<Integer> needed = new java.util.HashSet<>();
+        int size = frames.size();
+        for (int i = -PAGE_LOOKBEHIND_FRAMES; i <= PAGE_LOOKAHEAD_FRAMES; i++) {
+            needed.add(frames.get(((currentFrameIndex + i) % size + size) % size).atlasIndex);
+        }
+        texturePages.retain(needed);
+    }
+    
+    // 预取范围：向后看约2秒（15fps），向前保留少量帧以便单步回退
+    private static final int PAGE_LOOKAHEAD_FRAMES = 30;
+    private static final int PAGE_LOOKBEHIND_FRAMES = 2;
+    
     private JPanel createControlPanel() {
         JPanel panel = new JPanel(new FlowLayout());
         
@@ -1215,23 +1584,24 @@ public class AnimationPlayer extends JFrame {
             }
         });
         
-        speedField = new JTextField(String.format("%.1f", 1000.0 / animationSpeed), 5); // 显示帧率而不是毫秒
+        speedField = new JTextField(formatFps(playbackFps), 5); // 显示帧率而不是毫秒
         speedField.addKeyListener(new KeyListener() {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (e.getKeyCode() == KeyEvent.VK_ENTER) {
                     try {
                         double fps = Double.parseDouble(speedField.getText());
-                        if (fps > 0 && fps <= 100) {
-                            animationSpeed = (int) Math.round(1000.0 / fps); // 将帧率转换为毫秒间隔
-                            if (animationTimer != null) {
-                                animationTimer.setDelay(animationSpeed);
+                        if (fps > 0 && fps <= Const.APP_MAX_PLAYBACK_FPS) {
+                            playbackFps = fps;
+                            playbackClock.setFps(fps); // 播放中修改时从当前位置平滑切换
+                            if (gridPanel != null) {
+                                gridPanel.setFps(fps);
                             }
                         } else {
-                            speedField.setText(String.format("%.1f", 1000.0 / animationSpeed)); // 恢复原值
+                            speedField.setText(formatFps(playbackFps)); // 恢复原值
                         }
                     } catch (NumberFormatException ex) {
-                        speedField.setText(String.format("%.1f", 1000.0 / animationSpeed)); // 恢复原值
+                        speedField.setText(formatFps(playbackFps)); // 恢复原值
                     }
                     // 让输入框失去焦点，使主窗口重新获得焦点以便快捷键生效
                     AnimationPlayer.this.requestFocus();
@@ -1255,9 +1625,78 @@ public class AnimationPlayer extends JFrame {
         panel.add(speedField);
         panel.add(new JLabel("FPS"));
         
+        // 动画序列选择（仅当图集包含多个序列时显示）
+        sequenceLabel = new JLabel("动画:");
+        sequenceCombo = new JComboBox<>();
+        sequenceCombo.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!updatingSequenceCombo) {
+                    selectSequence((String) sequenceCombo.getSelectedItem());
+                    AnimationPlayer.this.requestFocus();
+                }
+            }
+        });
+        sequenceLabel.setVisible(false);
+        sequenceCombo.setVisible(false);
+        panel.add(Box.createHorizontalStrut(10)); // 添加间距
+        panel.add(sequenceLabel);
+        panel.add(sequenceCombo);
+        
         return panel;
     }
     
+    /**
+     * 根据当前图集刷新动画序列下拉框
+     */
+    private void updateSequenceSelector() {
+        updatingSequenceCombo = true;
+        try {
+            sequenceCombo.removeAllItems();
+            java.util.Map<String, PListParser.AnimationSequence> sequences =
+                currentAtlasInfo != null ? currentAtlasInfo.getSequences() : java.util.Collections.<String, PListParser.AnimationSequence>emptyMap();
+            boolean multiple = sequences.size() > 1;
+            if (multiple) {
+                sequenceCombo.addItem(ALL_SEQUENCES_ITEM);
+                for (String name : sequences.keySet()) {
+                    sequenceCombo.addItem(name);
+                }
+                sequenceCombo.setSelectedIndex(0);
+            }
+            sequenceLabel.setVisible(multiple);
+            sequenceCombo.setVisible(multiple);
+        } finally {
+            updatingSequenceCombo = false;
+        }
+    }
+    
+    /**
+     * 切换到指定动画序列，直接使用解析时建立的序列帧列表，无需重新解析或排序
+     */
+    private void selectSequence(String name) {
+        if (currentAtlasInfo == null || name == null) {
+            return;
+        }
+        PListParser.AnimationSequence sequence = currentAtlasInfo.getSequences().get(name);
+        frames = sequence != null ? sequence.frames : currentAtlasInfo.getFramesInOrder();
+        currentFrameIndex = 0;
+        if (prefetchRing != null) {
+            prefetchRing.setFrames(frames);
+        }
+        if (isPlaying) {
+            playbackClock.start(0);
+        }
+        retainPagesNearPlayhead();
+        if (frameCache != null) {
+            frameCache.prebakeAsync(frames, 0);
+        }
+        updateFrameLabel();
+        repaintAnimation();
+        statusLabel.setText("动画: " + name + " (" + frames.size() + " 帧)");
+    }
+    
+    private static final String ALL_SEQUENCES_ITEM = "全部帧";
+    
     private JPanel createInfoPanel() {
         JPanel panel = new JPanel(new FlowLayout());
         
@@ -1280,78 +1719,33 @@ public class AnimationPlayer extends JFrame {
                 return;
             }
             
-            PListParser.TextureAtlasInfo atlasInfo = PListParser.parsePList(plistFile);
+            PListParser.TextureAtlasInfo atlasInfo = AtlasCache.getInstance().get(plistFile);
             frames = atlasInfo.getFramesInOrder();
             
-            // 尝试加载纹理图像（支持多种格式）
-            String baseName = "attack";
-            File[] possibleTextures = new File(".").listFiles((dir, name) -> {
-                String lowerName = name.toLowerCase();
-                return (lowerName.startsWith(baseName.toLowerCase()) && 
-                       (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") || 
-                        lowerName.endsWith(".jpeg") || lowerName.endsWith(".dds")));
-            });
-            
+            // 尝试加载纹理图像（metadata中的纹理名或同名的png/jpg/jpeg/dds）
             boolean textureLoaded = false;
-            if (possibleTextures != null && possibleTextures.length > 0) {
-                // 优先级：PNG > JPG > JPEG > DDS
-                File textureFile = null;
-                for (File file : possibleTextures) {
-                    String lowerName = file.getName().toLowerCase();
-                    if (lowerName.endsWith(".png")) {
-                        textureFile = file;
-                        break;
-                    }
-                }
-                if (textureFile == null) {
-                    for (File file : possibleTextures) {
-                        String lowerName = file.getName().toLowerCase();
-                        if (lowerName.endsWith(".jpg")) {
-                            textureFile = file;
-                            break;
-                        }
-                    }
-                }
-                if (textureFile == null) {
-                    for (File file : possibleTextures) {
-                        String lowerName = file.getName().toLowerCase();
-                        if (lowerName.endsWith(".jpeg")) {
-                            textureFile = file;
-                            break;
-                        }
-                    }
-                }
-                if (textureFile == null) {
-                    for (File file : possibleTextures) {
-                        String lowerName = file.getName().toLowerCase();
-                        if (lowerName.endsWith(".dds")) {
-                            textureFile = file;
-                            break;
-                        }
-                    }
-                }
-                
-                if (textureFile != null) {
-                    try {
-                        String fileName = textureFile.getName().toLowerCase();
-                        if (fileName.endsWith(".dds")) {
-                            textureAtlas = DDSImageLoader.loadDDS(textureFile);
-                            statusLabel.setText("已加载DDS纹理: " + textureAtlas.getWidth() + "x" + textureAtlas.getHeight());
-                        } else {
-                            textureAtlas = javax.imageio.ImageIO.read(textureFile);
-                            String format = fileName.endsWith(".png") ? "PNG" : 
-                                          fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") ? "JPG" : "未知";
-                            statusLabel.setText("已加载" + format + "纹理: " + textureAtlas.getWidth() + "x" + textureAtlas.getHeight());
-                        }
-                        textureLoaded = true;
-                    } catch (Exception e) {
-                        System.out.println("纹理加载失败: " + e.getMessage());
+            File textureFile = TextureFiles.find(plistFile, atlasInfo);
+            if (textureFile != null) {
+                try {
+                    String fileName = textureFile.getName().toLowerCase();
+                    if (fileName.endsWith(".dds")) {
+                        setTextureLease(TextureRegistry.getInstance().acquire(textureFile));
+                        statusLabel.setText("已加载DDS纹理: " + textureAtlas.getWidth() + "x" + textureAtlas.getHeight());
+                    } else {
+                        setTextureLease(TextureRegistry.getInstance().acquire(textureFile));
+                        String format = fileName.endsWith(".png") ? "PNG" : 
+                                      fileName.endsWith(".jpg") || fileName.endsWith(".jpeg") ? "JPG" : "未知";
+                        statusLabel.setText("已加载" + format + "纹理: " + textureAtlas.getWidth() + "x" + textureAtlas.getHeight());
                     }
+                    textureLoaded = true;
+                } catch (Exception e) {
+                    System.out.println("纹理加载失败: " + e.getMessage());
                 }
             }
             
             if (!textureLoaded) {
                 // 创建测试图像
+                setTextureLease(null);
                 textureAtlas = DDSImageLoader.createTestImage(
                     atlasInfo.textureSize != null ? atlasInfo.textureSize.width : 1364,
                     atlasInfo.textureSize != null ? atlasInfo.textureSize.height : 124
@@ -1360,7 +1754,7 @@ public class AnimationPlayer extends JFrame {
             }
             
             updateFrameLabel();
-            animationPanel.repaint();
+            repaintAnimation();
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -1368,207 +1762,225 @@ public class AnimationPlayer extends JFrame {
         }
     }
     
-    private void drawCurrentFrame(Graphics g) {
+    private void drawCurrentFrame(Graphics g, int panelWidth, int panelHeight) {
         Graphics2D g2d = (Graphics2D) g.create();
         
-        if (frames == null || frames.isEmpty() || textureAtlas == null) {
+        FrameProfiler profiler = showProfiler ? frameProfiler : null;
+        if (profiler != null) {
+            profiler.beginFrame();
+        }
+        
+        // 取一次快照，渲染线程与EDT切换帧列表时也不会越界
+        List<PListParser.FrameInfo> frameList = frames;
+        PListParser.FrameInfo currentFrame = frameList != null && !frameList.isEmpty()
+            ? frameList.get(currentFrameIndex % frameList.size()) : null;
+        // 预合成模式：帧来自缓存，稳定播放时只有一次drawImage
+        // 直接绘制模式：从图集按源矩形绘制，不产生中间图像
+        // 预取模式：只读取已就绪的帧，播放中未就绪时保持上一帧，不在绘制线程合成
+        BufferedImage frameImage = null;
+        BufferedImage atlas = null;
+        if (currentFrame != null && currentFrame.frame != null) {
+            FramePrefetchRing ring = prefetchRing;
+            if (renderMode == RenderMode.DIRECT) {
+                atlas = getAtlasForFrame(currentFrame);
+            } else if (ring != null) {
+                int index = currentFrameIndex % frameList.size();
+                ring.update(index);
+                frameImage = ring.get(index);
+                if (frameImage == null && isPlaying) {
+                    frameImage = ring.getLastImage();
+                }
+                if (frameImage == null) {
+                    frameImage = ring.composeNow(index, profiler);
+                }
+            } else if (frameCache != null) {
+                frameImage = frameCache.get(currentFrame, profiler);
+            }
+        }
+        
+        if (frameImage == null && atlas == null) {
+            // 下一次帧切换需整体重绘以清除提示文字
+            lastFrameBounds = null;
             if (showInfoText) {
                 g2d.setColor(Color.WHITE);
-                g2d.drawString("没有可显示的动画帧", 20, 30);
+                boolean loadingPage = currentFrame != null && currentFrame.frame != null && texturePages != null;
+                g2d.drawString(loadingPage ? "正在加载纹理页..." : "没有可显示的动画帧", 20, 30);
                 g2d.drawString(String.format("实际FPS: %.1f", actualFps), 10, 80);
             }
+            if (currentFrame != null && currentFrame.frame != null && texturePages != null) {
+                // 纹理页在后台解码，稍后重绘
+                if (!activeRendering) {
+                    animationPanel.repaint(50);
+                }
+            }
         } else {
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        
-        PListParser.FrameInfo currentFrame = frames.get(currentFrameIndex);
-        
-        if (currentFrame.frame != null) {
-            // 从纹理图集中提取当前帧
-            Rectangle frameRect = currentFrame.frame;
+            // 计算居中显示的位置
+            int imageWidth;
+            int imageHeight;
+            if (frameImage != null) {
+                imageWidth = frameImage.getWidth();
+                imageHeight = frameImage.getHeight();
+            } else {
+                Dimension canvasSize = FrameCompositor.canvasSize(currentFrame);
+                imageWidth = canvasSize.width;
+                imageHeight = canvasSize.height;
+            }
             
-            try {
-                BufferedImage frameImage;
-                
-                // 重写切图逻辑，按照测试程序的方式处理
-                int atlasWidth = textureAtlas.getWidth();
-                int atlasHeight = textureAtlas.getHeight();
-                
-                // 计算切图区域的起始坐标和尺寸
-                int startX = frameRect.x;
-                int startY = frameRect.y;
-                int cropWidth, cropHeight;
-                
-                if (currentFrame.rotated) {
-                    // 对于旋转的子图，结束坐标为 (x+h, y+w)
-                    // 这意味着在atlas中，宽度和高度已经交换了
-                    cropWidth = frameRect.height;  // 使用height作为宽度
-                    cropHeight = frameRect.width;  // 使用width作为高度
-                } else {
-                    // 对于不旋转的子图，结束坐标为 (x+w, y+h)
-                    cropWidth = frameRect.width;
-                    cropHeight = frameRect.height;
-                }
-                
-                // 边界检查，确保不超出atlas范围
-                int safeX = Math.max(0, Math.min(startX, atlasWidth - 1));
-                int safeY = Math.max(0, Math.min(startY, atlasHeight - 1));
-                int safeWidth = Math.min(cropWidth, atlasWidth - safeX);
-                int safeHeight = Math.min(cropHeight, atlasHeight - safeY);
-                
-                // 从atlas中提取图片
-                BufferedImage extractedImage = textureAtlas.getSubimage(safeX, safeY, safeWidth, safeHeight);
-                
-                // 创建独立的图片副本并处理旋转
-                BufferedImage finalFrame;
-                if (currentFrame.rotated) {
-                    // 旋转图片：先复制提取的图像，然后旋转-90度
-                    BufferedImage tempCopy = new BufferedImage(extractedImage.getWidth(), extractedImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D tempG = tempCopy.createGraphics();
-                    tempG.drawImage(extractedImage, 0, 0, null);
-                    tempG.dispose();
-                    
-                    // 旋转-90度恢复原始方向
-                    finalFrame = rotateImage(tempCopy, -90);
+            int x = (panelWidth - imageWidth) / 2;
+            int y = (panelHeight - imageHeight) / 2;
+            if (!activeRendering) {
+                lastFrameBounds = frameBounds(x, y, imageWidth, imageHeight);
+            }
+            
+            // 局部重绘时跳过与裁剪区无关的绘制
+            if (g2d.hitClip(x, y, imageWidth, imageHeight)) {
+                long blitStart = System.nanoTime();
+                if (frameImage != null) {
+                    g2d.drawImage(frameImage, x, y, null);
                 } else {
-                    // 非旋转图片：直接复制
-                    finalFrame = new BufferedImage(extractedImage.getWidth(), extractedImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D copyG = finalFrame.createGraphics();
-                    copyG.drawImage(extractedImage, 0, 0, null);
-                    copyG.dispose();
+                    g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                    FrameCompositor.drawDirect(g2d, atlas, currentFrame, x, y);
                 }
-                
-                BufferedImage extractedFrame = finalFrame;
-                
-                // 正确处理TexturePacker的坐标系统
-                // sourceSize: 原始图像的完整尺寸
-                // sourceColorRect: 有效像素区域在原始图像中的位置和尺寸
-                // offset: 图像中心相对于原始图像中心的偏移
-                
-                int canvasWidth = currentFrame.sourceSize != null ? currentFrame.sourceSize.width : extractedFrame.getWidth();
-                int canvasHeight = currentFrame.sourceSize != null ? currentFrame.sourceSize.height : extractedFrame.getHeight();
-                frameImage = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D frameGraphics = frameImage.createGraphics();
-                frameGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                frameGraphics.setComposite(AlphaComposite.SrcOver);
-                // 不需要清除画布，BufferedImage默认创建时已经是透明的
-                
-                // 计算绘制位置
-                // TexturePacker的offset是相对于sourceSize中心的偏移
-                // sourceColorRect定义了实际内容在sourceSize画布中的位置
-                int drawX = 0, drawY = 0;
-                if (currentFrame.sourceColorRect != null) {
-                    drawX += currentFrame.sourceColorRect.x;
-                    drawY += currentFrame.sourceColorRect.y;
-                }
-                
-                // 应用offset偏移
-                if (currentFrame.offset != null) {
-                    // drawX += currentFrame.offset.x;
-                    // drawY += currentFrame.offset.y;
+                if (profiler != null) {
+                    // 直接绘制模式下旋转由绘制时的变换完成，计入绘制阶段
+                    profiler.addStage(FrameProfiler.Stage.BLIT, System.nanoTime() - blitStart);
                 }
-                
-                
-                frameGraphics.drawImage(extractedFrame, drawX, drawY, null);
-                frameGraphics.dispose();
-                
-                // 计算居中显示的位置
-                int panelWidth = animationPanel.getWidth();
-                int panelHeight = animationPanel.getHeight();
-                int imageWidth = frameImage.getWidth();
-                int imageHeight = frameImage.getHeight();
-                
-                // 计算缩放比例以适应面板
-                double scaleX = (double) panelWidth / imageWidth;
-                double scaleY = (double) panelHeight / imageHeight;
-                double scale = Math.min(scaleX, scaleY) * 0.8; // 留一些边距
-                scale = 1.0;
-                
-                int scaledWidth = (int) (imageWidth * scale);
-                int scaledHeight = (int) (imageHeight * scale);
-                
-                int x = (panelWidth - scaledWidth) / 2;
-                int y = (panelHeight - scaledHeight) / 2;
-                
-                
-                // offset已经在帧创建时处理，这里不需要再次应用
-                g2d.drawImage(frameImage, x, y, scaledWidth, scaledHeight, null);
-                
-                // 为frameImage添加边框（根据设置控制显示）
-                if (showSpriteBorder) {
-                    g2d.setColor(Color.RED);
-                    g2d.setStroke(new BasicStroke(2));
-                    g2d.drawRect(x, y, scaledWidth, scaledHeight);
-                }
-                
-                // 绘制帧信息（根据设置控制显示）
-                if (showInfoText) {
-                    g2d.setColor(Color.WHITE);
-                    // 显示文件路径
-                    g2d.drawString("文件: " + currentPlistPath, 10, 20);
-                    g2d.drawString("帧: " + currentFrame.name, 10, 40);
-                    g2d.drawString("尺寸: " + frameRect.width + "x" + frameRect.height, 10, 60);
-                    // 显示精灵尺寸（sourceSize）
-                    if (currentFrame.sourceSize != null) {
-                        g2d.drawString("精灵尺寸: " + currentFrame.sourceSize.width + "x" + currentFrame.sourceSize.height, 10, 80);
+            }
+            
+            // 为frameImage添加边框（根据设置控制显示）
+            if (showSpriteBorder) {
+                g2d.setColor(Color.RED);
+                g2d.setStroke(SPRITE_BORDER_STROKE);
+                g2d.drawRect(x, y, imageWidth, imageHeight);
+            }
+            
+            // 绘制帧信息（根据设置控制显示）
+            if (showInfoText) {
+                g2d.setColor(Color.WHITE);
+                String[] lines = infoTextLines(currentFrame);
+                for (int i = 0; i < lines.length; i++) {
+                    if (lines[i] != null) {
+                        g2d.drawString(lines[i], INFO_TEXT_X, INFO_TEXT_FIRST_BASELINE + i * INFO_TEXT_LINE_HEIGHT);
                     }
-                    g2d.drawString(String.format("实际FPS: %.1f", actualFps), 10, 100);
                 }
-                
-            } catch (Exception e) {
-                g2d.setColor(Color.RED);
-                g2d.drawString("帧显示错误: " + e.getMessage(), 10, 30);
+                if (!activeRendering) {
+                    lastInfoTextBounds = infoTextBounds(g2d.getFontMetrics(), lines);
+                }
+            }
+            if (profiler != null) {
+                profiler.endFrame();
             }
         }
+        
+        if (showProfiler) {
+            Rectangle overlay = profilerOverlayBounds(panelHeight);
+            frameProfiler.paintOverlay(g2d, overlay.x, overlay.y, (long) playbackClock.getFrameDurationNanos());
         }
         
         g2d.dispose();
     }
     
-    private BufferedImage rotateImage(BufferedImage image, int degrees) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        
-        // 对于90度的倍数旋转，需要交换宽高
-        boolean swapDimensions = (Math.abs(degrees) % 180) == 90;
-        int newWidth = swapDimensions ? height : width;
-        int newHeight = swapDimensions ? width : height;
-        
-        BufferedImage rotated = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = rotated.createGraphics();
-        
-        // 设置高质量渲染
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // 清除背景为透明
-        g2d.setComposite(AlphaComposite.Clear);
-        g2d.fillRect(0, 0, newWidth, newHeight);
-        g2d.setComposite(AlphaComposite.SrcOver);
-        
-        // 移动到旋转中心
-        g2d.translate(newWidth / 2.0, newHeight / 2.0);
-        // 根据传入的角度进行旋转
-        g2d.rotate(Math.toRadians(degrees));
-        // 移动图像使其居中
-        g2d.translate(-width / 2.0, -height / 2.0);
-        
-        // 绘制原图像
-        g2d.drawImage(image, 0, 0, null);
-        g2d.dispose();
-        
-        return rotated;
+    private static Rectangle profilerOverlayBounds(int panelHeight) {
+        Dimension size = FrameProfiler.OVERLAY_SIZE;
+        return new Rectangle(10, panelHeight - size.height - 10, size.width, size.height);
     }
     
+    private static final int INFO_TEXT_X = 10;
+    private static final int INFO_TEXT_FIRST_BASELINE = 20;
+    private static final int INFO_TEXT_LINE_HEIGHT = 20;
+    
+    /**
+     * 帧信息文字，按行排列；为null的行留空（如缺少sourceSize时）
+     */
+    private String[] infoTextLines(PListParser.FrameInfo frame) {
+        return new String[] {
+            "文件: " + currentPlistPath,
+            "帧: " + frame.name,
+            "尺寸: " + frame.frame.width + "x" + frame.frame.height,
+            // 精灵尺寸（sourceSize）
+            frame.sourceSize != null ? "精灵尺寸: " + frame.sourceSize.width + "x" + frame.sourceSize.height : null,
+            String.format("实际FPS: %.1f", actualFps)
+        };
+    }
+    
+    /**
+     * 帧在面板上占据的区域，四周留出边框线宽
+     */
+    private static Rectangle frameBounds(int x, int y, int width, int height) {
+        Rectangle bounds = new Rectangle(x, y, width, height);
+        bounds.grow(2, 2);
+        return bounds;
+    }
+    
+    /**
+     * 帧信息文字占据的区域，按实际字体测量
+     */
+    private static Rectangle infoTextBounds(FontMetrics metrics, String[] lines) {
+        int width = 0;
+        for (String line : lines) {
+            if (line != null) {
+                width = Math.max(width, metrics.stringWidth(line));
+            }
+        }
+        int bottom = INFO_TEXT_FIRST_BASELINE + (lines.length - 1) * INFO_TEXT_LINE_HEIGHT + metrics.getMaxDescent();
+        return new Rectangle(0, 0, INFO_TEXT_X + width + 2, bottom + 2);
+    }
+    
+    /**
+     * 帧切换时只重绘变化的区域：上一次绘制的帧区域与当前帧区域之并，以及信息文字区域
+     * 背景是纯色填充，局部重绘时由面板按裁剪区填充，开销随精灵大小而不是窗口大小变化
+     */
+    private void repaintFrameRegion() {
+        if (activeRendering) {
+            repaintAnimation();
+            return;
+        }
+        List<PListParser.FrameInfo> frameList = frames;
+        PListParser.FrameInfo frame = frameList != null && !frameList.isEmpty()
+            ? frameList.get(currentFrameIndex % frameList.size()) : null;
+        Rectangle previous = lastFrameBounds;
+        if (frame == null || frame.frame == null || previous == null) {
+            // 帧不可绘制或上一次显示的是提示文字，整体重绘
+            animationPanel.repaint();
+            return;
+        }
+        Dimension size = FrameCompositor.canvasSize(frame);
+        Rectangle dirty = frameBounds((animationPanel.getWidth() - size.width) / 2,
+            (animationPanel.getHeight() - size.height) / 2, size.width, size.height).union(previous);
+        if (showInfoText) {
+            Rectangle info = infoTextBounds(animationPanel.getFontMetrics(animationPanel.getFont()), infoTextLines(frame));
+            Rectangle previousInfo = lastInfoTextBounds;
+            dirty = dirty.union(previousInfo != null ? info.union(previousInfo) : info);
+        }
+        if (showProfiler) {
+            dirty = dirty.union(profilerOverlayBounds(animationPanel.getHeight()));
+        }
+        animationPanel.repaint(dirty);
+    }
+    
+    private static final BasicStroke SPRITE_BORDER_STROKE = new BasicStroke(2);
+    
     private void play() {
+        if (gridPanel != null) {
+            isPlaying = true;
+            gridPanel.setFps(playbackFps);
+            gridPanel.start();
+            statusLabel.setText("状态: 网格播放中 (" + gridPanel.getCellCount() + " 个动画)");
+            playPauseButton.setText("暂停");
+            return;
+        }
         if (frames != null && !frames.isEmpty()) {
             isPlaying = true;
-            // 重置fps计算相关变量
-            lastFrameTime = 0;
-            fpsStartTime = 0;
-            frameCount = 0;
-            actualFps = 1000.0 / animationSpeed; // 显示理论FPS
-            animationTimer.start();
+            // 重置fps计算相关变量，先显示理论FPS
+            resetFpsCounter(playbackFps);
+            playbackClock.setFps(playbackFps);
+            playbackClock.start(currentFrameIndex);
+            if (activeRendering) {
+                // 主动渲染线程直接按时钟取帧，无需调度线程
+                activeCanvas.requestRender();
+            } else {
+                playbackScheduler.start();
+            }
             statusLabel.setText("状态: 播放中");
             playPauseButton.setText("暂停"); // 更新按钮文字
         }
@@ -1576,60 +1988,265 @@ public class AnimationPlayer extends JFrame {
     
     private void pause() {
         isPlaying = false;
-        animationTimer.stop();
+        if (gridPanel != null) {
+            gridPanel.stop();
+        }
+        playbackScheduler.stop();
+        playbackClock.stop();
         statusLabel.setText("状态: 已暂停");
-        actualFps = 0.0;
-        animationPanel.repaint();
+        resetFpsCounter(0.0);
+        repaintAnimation();
         playPauseButton.setText("播放"); // 更新按钮文字
     }
     
     private void stop() {
         isPlaying = false;
-        animationTimer.stop();
+        if (gridPanel != null) {
+            gridPanel.stop();
+            gridPanel.rewind();
+        }
+        playbackScheduler.stop();
+        playbackClock.stop();
         currentFrameIndex = 0;
+        retainPagesNearPlayhead();
         updateFrameLabel();
-        animationPanel.repaint();
+        repaintAnimation();
         statusLabel.setText("状态: 已停止");
-        actualFps = 0.0;
+        resetFpsCounter(0.0);
         playPauseButton.setText("播放"); // 更新按钮文字
     }
     
-    private void nextFrame() {
-        if (frames != null && !frames.isEmpty()) {
-            // 改进的FPS计算 - 使用滑动窗口平均值
-            if (isPlaying) {
-                long currentTime = System.currentTimeMillis();
-                
-                if (fpsStartTime == 0) {
-                    fpsStartTime = currentTime;
-                    frameCount = 0;
+    /**
+     * 播放调度回调（EDT）：按时钟给出的帧号显示对应帧，渲染落后时自动跳帧
+     */
+    private void onPlaybackFrame(long frameNumber) {
+        if (!isPlaying || frames == null || frames.isEmpty()) {
+            return;
+        }
+        int index = (int) (frameNumber % frames.size());
+        if (index == currentFrameIndex) {
+            return;
+        }
+        
+        countDisplayedFrame();
+        currentFrameIndex = index;
+        if (showProfiler) {
+            frameProfiler.markScheduled(playbackClock.nanosOfFrame(frameNumber));
+        }
+        retainPagesNearPlayhead();
+        updateFrameLabel();
+        repaintFrameRegion();
+    }
+    
+    private void resetFpsCounter(double fps) {
+        synchronized (fpsLock) {
+            fpsStartNanos = 0;
+            frameCount = 0;
+            actualFps = fps;
+        }
+    }
+    
+    /**
+     * FPS统计：每秒计算一次实际显示的帧数（EDT或主动渲染线程调用）
+     */
+    private void countDisplayedFrame() {
+        long now = System.nanoTime();
+        synchronized (fpsLock) {
+            if (fpsStartNanos == 0) {
+                fpsStartNanos = now;
+                frameCount = 0;
+            }
+            frameCount++;
+            long elapsedNanos = now - fpsStartNanos;
+            if (elapsedNanos >= 1_000_000_000L) {
+                actualFps = frameCount * 1_000_000_000.0 / elapsedNanos;
+                fpsStartNanos = now;
+                frameCount = 0;
+            }
+        }
+    }
+    
+    /**
+     * 主动渲染回调（渲染线程）：按时钟推进帧并绘制整个画面
+     * 帧号、纹理页预取等UI更新合并后投递到EDT
+     */
+    private void renderActiveFrame(Graphics2D g, int width, int height) {
+        List<PListParser.FrameInfo> frameList = frames;
+        if (isPlaying && playbackClock.isRunning() && frameList != null && !frameList.isEmpty()) {
+            long frameNumber = playbackClock.frameAt(System.nanoTime());
+            int index = (int) (frameNumber % frameList.size());
+            if (index != currentFrameIndex) {
+                countDisplayedFrame();
+                currentFrameIndex = index;
+                if (showProfiler) {
+                    frameProfiler.markScheduled(playbackClock.nanosOfFrame(frameNumber));
                 }
-                
-                frameCount++;
-                
-                // 每秒更新一次FPS显示，使用平均值
-                long elapsedTime = currentTime - fpsStartTime;
-                if (elapsedTime >= 1000) { // 每1秒计算一次平均FPS
-                    actualFps = (frameCount * 1000.0) / elapsedTime;
-                    fpsStartTime = currentTime;
-                    frameCount = 0;
-                } else if (frameCount == 1) {
-                    // 第一帧时显示理论FPS
-                    actualFps = 1000.0 / animationSpeed;
+                if (activeUpdatePending.compareAndSet(false, true)) {
+                    SwingUtilities.invokeLater(() -> {
+                        activeUpdatePending.set(false);
+                        retainPagesNearPlayhead();
+                        updateFrameLabel();
+                    });
                 }
             }
-            
+        }
+        g.setColor(animationPanel.getBackground());
+        g.fillRect(0, 0, width, height);
+        drawCurrentFrame(g, width, height);
+    }
+    
+    /**
+     * 开关主动渲染：用ActiveRenderCanvas替换animationPanel，或换回来
+     */
+    private void setActiveRendering(boolean enabled) {
+        if (activeRendering == enabled) return;
+        setGridMode(false);
+        boolean wasPlaying = isPlaying;
+        if (wasPlaying) {
+            pause();
+        }
+        if (enabled) {
+            activeCanvas = new ActiveRenderCanvas(playbackClock, this::renderActiveFrame);
+            activeCanvas.setBackground(animationPanel.getBackground());
+            activeCanvas.setPreferredSize(animationPanel.getPreferredSize());
+            activeCanvas.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    AnimationPlayer.this.requestFocus();
+                }
+            });
+            rightPanel.remove(animationPanel);
+            rightPanel.add(activeCanvas, BorderLayout.CENTER);
+            rightPanel.revalidate();
+            activeCanvas.start();
+        } else {
+            activeCanvas.stop();
+            rightPanel.remove(activeCanvas);
+            activeCanvas = null;
+            rightPanel.add(animationPanel, BorderLayout.CENTER);
+            rightPanel.revalidate();
+        }
+        activeRendering = enabled;
+        repaintAnimation();
+        if (wasPlaying) {
+            play();
+        }
+    }
+    
+    /**
+     * 开关网格播放：用GridPlaybackPanel替换单动画的显示区域，或换回来
+     */
+    private void setGridMode(boolean enabled) {
+        if ((gridPanel != null) == enabled) return;
+        if (isPlaying) {
+            pause();
+        }
+        BorderLayout layout = (BorderLayout) rightPanel.getLayout();
+        if (enabled) {
+            rightPanel.remove(layout.getLayoutComponent(BorderLayout.CENTER));
+            gridPanel = new GridPlaybackPanel(playbackFps);
+            gridPanel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    AnimationPlayer.this.requestFocus();
+                }
+            });
+            rightPanel.add(gridPanel, BorderLayout.CENTER);
+            loadGrid((DefaultMutableTreeNode) directoryTree.getLastSelectedPathComponent());
+        } else {
+            gridPanel.dispose();
+            rightPanel.remove(gridPanel);
+            gridPanel = null;
+            if (activeRendering) {
+                rightPanel.add(activeCanvas, BorderLayout.CENTER);
+                activeCanvas.start();
+            } else {
+                rightPanel.add(animationPanel, BorderLayout.CENTER);
+            }
+            statusLabel.setText("状态: 已停止");
+        }
+        rightPanel.revalidate();
+        rightPanel.repaint();
+        gridModeItem.setSelected(enabled);
+        if (enabled) {
+            play();
+        }
+    }
+    
+    /**
+     * 以选中节点所在文件夹（未选中时为根节点）下的图集文件填充网格，按树中顺序取前若干个
+     */
+    private void loadGrid(DefaultMutableTreeNode node) {
+        DefaultMutableTreeNode dirNode = node != null ? node : rootNode;
+        if (dirNode.getUserObject() instanceof PlistFileNode && dirNode.getParent() != null) {
+            dirNode = (DefaultMutableTreeNode) dirNode.getParent();
+        }
+        java.util.List<File> atlasFiles = new java.util.ArrayList<>();
+        collectAtlasFiles(dirNode, atlasFiles, GridPlaybackPanel.MAX_CELLS);
+        gridPanel.load(atlasFiles);
+        statusLabel.setText((isPlaying ? "状态: 网格播放中 (" : "网格: (") + gridPanel.getCellCount() + " 个动画)");
+    }
+    
+    private void collectAtlasFiles(DefaultMutableTreeNode dirNode, java.util.List<File> out, int limit) {
+        for (int i = 0; i < dirNode.getChildCount() && out.size() < limit; i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) dirNode.getChildAt(i);
+            if (child.getUserObject() instanceof PlistFileNode) {
+                out.add(new File(((PlistFileNode) child.getUserObject()).getFilePath()));
+            } else {
+                collectAtlasFiles(child, out, limit);
+            }
+        }
+    }
+    
+    /**
+     * 请求重绘动画区域（主动渲染时交给渲染线程）
+     */
+    private void repaintAnimation() {
+        if (activeRendering && activeCanvas != null) {
+            activeCanvas.requestRender();
+        } else {
+            animationPanel.repaint();
+        }
+    }
+    
+    private void nextFrame() {
+        if (gridPanel != null) {
+            gridPanel.step(1);
+            return;
+        }
+        if (frames != null && !frames.isEmpty()) {
             currentFrameIndex = (currentFrameIndex + 1) % frames.size();
+            resyncClockAfterStep();
+            retainPagesNearPlayhead();
             updateFrameLabel();
-            animationPanel.repaint();
+            repaintFrameRegion();
+        }
+    }
+    
+    /**
+     * 播放中单步（按钮）时让播放时钟从新位置继续计时，否则下一次调度会按时钟算回原来的帧
+     */
+    private void resyncClockAfterStep() {
+        if (playbackClock.isRunning()) {
+            playbackClock.start(currentFrameIndex);
         }
     }
     
+    private static String formatFps(double fps) {
+        return fps == Math.rint(fps) ? String.format("%.1f", fps) : String.format("%.3f", fps);
+    }
+    
     private void previousFrame() {
+        if (gridPanel != null) {
+            gridPanel.step(-1);
+            return;
+        }
         if (frames != null && !frames.isEmpty()) {
             currentFrameIndex = (currentFrameIndex - 1 + frames.size()) % frames.size();
+            resyncClockAfterStep();
+            retainPagesNearPlayhead();
             updateFrameLabel();
-            animationPanel.repaint();
+            repaintFrameRegion();
         }
     }
     
@@ -1644,6 +2261,15 @@ public class AnimationPlayer extends JFrame {
 
     
     public static void main(String[] args) {
+        // 退出时将已解析的图集索引与缩略图索引写回磁盘，下次启动可跳过XML解析与缩略图生成
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                AtlasCache.getInstance().save();
+                ThumbnailStore.getInstance().save();
+            }
+        }, "atlas-index-save"));
+        
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -1659,9 +2285,9 @@ public class AnimationPlayer extends JFrame {
     }
     
     private void createThumbnailPanel() {
-        thumbnailsPanel = new JPanel(new TileWrapLayout(10, 10));
-        thumbnailsPanel.setBackground(new Color(245, 245, 245));
-        thumbnailsScrollPane = new JScrollPane(thumbnailsPanel);
+        thumbnailGrid = new ThumbnailGrid(thumbnailCache::get);
+        thumbnailGrid.addItemListener(item -> loadSinglePlistFile(new File(item.path)));
+        thumbnailsScrollPane = new JScrollPane(thumbnailGrid);
         thumbnailsScrollPane.setPreferredSize(new Dimension(250, 400));
         thumbnailsScrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
 
@@ -1669,8 +2295,8 @@ public class AnimationPlayer extends JFrame {
         thumbnailsScrollPane.getViewport().addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                thumbnailsPanel.revalidate();
-                thumbnailsPanel.repaint();
+                thumbnailGrid.revalidate();
+                thumbnailGrid.repaint();
                 scheduleVisibleThumbnails();
             }
         });
@@ -1684,26 +2310,179 @@ public class AnimationPlayer extends JFrame {
         });
 
         // 绑定右键菜单到缩略图面板
-        thumbnailsPanel.addMouseListener(new MouseAdapter() {
+        thumbnailGrid.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 if (e.isPopupTrigger()) {
-                    viewModePopup.show(thumbnailsPanel, e.getX(), e.getY());
+                    viewModePopup.show(thumbnailGrid, e.getX(), e.getY());
                 }
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
                 if (e.isPopupTrigger()) {
-                    viewModePopup.show(thumbnailsPanel, e.getX(), e.getY());
+                    viewModePopup.show(thumbnailGrid, e.getX(), e.getY());
                 }
             }
         });
     }
 
+    private JPanel createSearchBar() {
+        searchField = new JTextField();
+        searchField.setToolTipText("按名称、目录、动画序列、纹理格式或尺寸（如 512x512）搜索，空格分隔多个关键字，Esc清空");
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                applySearchFilter();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                applySearchFilter();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                applySearchFilter();
+            }
+        });
+        searchField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "clearSearch");
+        searchField.getActionMap().put("clearSearch", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchField.setText("");
+            }
+        });
+        JPanel searchBar = new JPanel(new BorderLayout(4, 0));
+        searchBar.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 2));
+        searchBar.add(new JLabel("搜索"), BorderLayout.WEST);
+        searchBar.add(searchField, BorderLayout.CENTER);
+        return searchBar;
+    }
+
+    private void setLeftContent(JComponent content) {
+        Component current = ((BorderLayout) leftPanel.getLayout()).getLayoutComponent(BorderLayout.CENTER);
+        if (current == content) return;
+        if (current != null) {
+            leftPanel.remove(current);
+        }
+        leftPanel.add(content, BorderLayout.CENTER);
+        leftPanel.revalidate();
+        leftPanel.repaint();
+    }
+
+    // 切换文件夹时清空搜索，旧索引不再可用
+    private void clearSearch() {
+        libraryIndexGeneration++;
+        libraryIndex = LibraryIndex.EMPTY;
+        if (!searchField.getText().isEmpty()) {
+            searchField.setText("");
+        }
+        searchMatches = null;
+        filteredRoot = null;
+        if (directoryTree.getModel() != treeModel) {
+            directoryTree.setModel(treeModel);
+        }
+    }
+
+    // 在后台按当前plist列表（与目录清单中的纹理、序列信息）建立搜索索引，完成后重新应用正在输入的查询
+    private void rebuildLibraryIndex() {
+        final int generation = ++libraryIndexGeneration;
+        final java.util.List<String> paths = new java.util.ArrayList<>(plistNodeList.size());
+        final java.util.List<String> names = new java.util.ArrayList<>(plistNodeList.size());
+        for (PlistFileNode node : plistNodeList) {
+            paths.add(node.getFilePath());
+            names.add(node.getDisplayName());
+        }
+        final Path root = libraryRoot;
+        final LibraryCatalog catalog = libraryCatalog;
+        Thread t = new Thread(() -> {
+            LibraryIndex index = LibraryIndex.build(root, paths, names, catalog);
+            SwingUtilities.invokeLater(() -> {
+                if (generation != libraryIndexGeneration) return;
+                libraryIndex = index;
+                if (!searchField.getText().trim().isEmpty()) {
+                    applySearchFilter();
+                }
+            });
+        }, "library-index");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // 按搜索框内容过滤目录树与缩略图；继续输入时索引只在上一次结果中细化
+    private void applySearchFilter() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty()) {
+            if (searchMatches == null) return;
+            searchMatches = null;
+            filteredRoot = null;
+            libraryIndex.search("");
+            directoryTree.setModel(treeModel);
+            directoryTree.expandRow(0);
+        } else {
+            int[] ids = libraryIndex.search(query);
+            java.util.Set<String> matches = new java.util.HashSet<>(ids.length * 2);
+            for (int id : ids) {
+                matches.add(libraryIndex.getPath(id));
+            }
+            searchMatches = matches;
+            // 只保留匹配的图集及其上级目录，节点共享原来的PlistFileNode
+            filteredRoot = copyMatchingNodes(rootNode, matches);
+            if (filteredRoot == null) {
+                filteredRoot = new DefaultMutableTreeNode(rootNode.getUserObject());
+            }
+            directoryTree.setModel(new DefaultTreeModel(filteredRoot));
+            if (ids.length <= 500) {
+                // 结果不多时全部展开
+                for (int row = 0; row < directoryTree.getRowCount(); row++) {
+                    directoryTree.expandRow(row);
+                }
+            } else {
+                directoryTree.expandRow(0);
+            }
+        }
+        if (useThumbnailSummaryView) {
+            rebuildThumbnailsForSummaryMode();
+            scheduleVisibleThumbnails();
+        } else {
+            populateThumbnails(visiblePlistNodes());
+        }
+    }
+
+    private DefaultMutableTreeNode copyMatchingNodes(DefaultMutableTreeNode node, java.util.Set<String> matches) {
+        Object userObject = node.getUserObject();
+        if (userObject instanceof PlistFileNode) {
+            return matches.contains(((PlistFileNode) userObject).getFilePath()) ? new DefaultMutableTreeNode(userObject) : null;
+        }
+        DefaultMutableTreeNode copy = null;
+        for (int i = 0; i < node.getChildCount(); i++) {
+            DefaultMutableTreeNode child = copyMatchingNodes((DefaultMutableTreeNode) node.getChildAt(i), matches);
+            if (child != null) {
+                if (copy == null) {
+                    copy = new DefaultMutableTreeNode(userObject);
+                }
+                copy.add(child);
+            }
+        }
+        return copy;
+    }
+
+    // 搜索过滤后的plist列表，未搜索时为全部
+    private java.util.List<PlistFileNode> visiblePlistNodes() {
+        if (searchMatches == null) return plistNodeList;
+        java.util.List<PlistFileNode> visible = new java.util.ArrayList<>(searchMatches.size());
+        for (PlistFileNode node : plistNodeList) {
+            if (searchMatches.contains(node.getFilePath())) {
+                visible.add(node);
+            }
+        }
+        return visible;
+    }
+
     private void switchToTreeView() {
         useThumbnailView = false;
-        mainSplitPane.setLeftComponent(treeScrollPane);
+        setLeftContent(treeScrollPane);
         mainSplitPane.setDividerLocation(250);
         syncDisplayModeSelection();
     }
@@ -1711,17 +2490,17 @@ public class AnimationPlayer extends JFrame {
     private void switchToThumbnailView() {
         useThumbnailView = true;
         useThumbnailSummaryView = false;
-        mainSplitPane.setLeftComponent(thumbnailsScrollPane);
+        setLeftContent(thumbnailsScrollPane);
         mainSplitPane.setDividerLocation(250);
-        // 切换到缩略图视图时，用全量plist列表重建缩略图
-        populateThumbnails(plistNodeList);
+        // 切换到缩略图视图时，用全量（或搜索过滤后的）plist列表重建缩略图
+        populateThumbnails(visiblePlistNodes());
         syncDisplayModeSelection();
     }
 
     private void switchToThumbnailSummaryView() {
         useThumbnailView = false;
         useThumbnailSummaryView = true;
-        mainSplitPane.setLeftComponent(thumbnailsScrollPane);
+        setLeftContent(thumbnailsScrollPane);
         mainSplitPane.setDividerLocation(250);
         rebuildThumbnailsForSummaryMode();
         syncDisplayModeSelection();
@@ -1773,98 +2552,16 @@ public class AnimationPlayer extends JFrame {
         viewModePopup.add(modeMenu);
     }
 
-    /**
-     * 一个简单的可换行布局：按容器（视口）宽度自动计算一行可放置的缩略图数量，超出则换行。
-     * 使用每个子组件的 preferredSize 作为瓦片尺寸。
-     */
-    public static class TileWrapLayout implements LayoutManager {
-        private final int hgap;
-        private final int vgap;
-
-        public TileWrapLayout(int hgap, int vgap) {
-            this.hgap = hgap;
-            this.vgap = vgap;
-        }
-
-        @Override
-        public void addLayoutComponent(String name, Component comp) {}
-
-        @Override
-        public void removeLayoutComponent(Component comp) {}
-
-        @Override
-        public Dimension preferredLayoutSize(Container parent) {
-            Insets ins = parent.getInsets();
-            int targetWidth = getTargetWidth(parent) - ins.left - ins.right;
-            int x = 0;
-            int rowHeight = 0;
-            int usedHeight = 0;
-
-            for (Component comp : parent.getComponents()) {
-                if (!comp.isVisible()) continue;
-                Dimension d = comp.getPreferredSize();
-                if (x > 0 && x + d.width > targetWidth) {
-                    usedHeight += rowHeight + vgap;
-                    x = 0;
-                    rowHeight = 0;
-                }
-                x += d.width + (x > 0 ? hgap : 0);
-                rowHeight = Math.max(rowHeight, d.height);
-            }
-            usedHeight += rowHeight;
-
-            if (usedHeight < 0) usedHeight = 0;
-            return new Dimension(Math.max(targetWidth, 0) + ins.left + ins.right,
-                    usedHeight + ins.top + ins.bottom);
-        }
-
-        @Override
-        public Dimension minimumLayoutSize(Container parent) {
-            return preferredLayoutSize(parent);
-        }
-
-        @Override
-        public void layoutContainer(Container parent) {
-            Insets ins = parent.getInsets();
-            int avail = Math.max(parent.getWidth() - ins.left - ins.right, 0);
-            int x = ins.left;
-            int y = ins.top;
-            int rowHeight = 0;
-
-            for (Component comp : parent.getComponents()) {
-                if (!comp.isVisible()) continue;
-                Dimension d = comp.getPreferredSize();
-                if (x > ins.left && (x - ins.left) + d.width > avail) {
-                    x = ins.left;
-                    y += rowHeight + vgap;
-                    rowHeight = 0;
-                }
-                comp.setBounds(x, y, d.width, d.height);
-                x += d.width + hgap;
-                rowHeight = Math.max(rowHeight, d.height);
-            }
-        }
-
-        private int getTargetWidth(Container parent) {
-            Container p = parent.getParent();
-            if (p instanceof JViewport) {
-                int w = p.getWidth();
-                if (w > 0) return w;
-            }
-            int w = parent.getWidth();
-            return w > 0 ? w : 250; // 初始值回退
-        }
-    }
     private void rebuildThumbnailsForSummaryMode() {
         resetThumbnailLoadingState();
         // 遍历树，仅选择每个目录下第一个plist
         java.util.List<PlistFileNode> summaryList = new java.util.ArrayList<>();
-        collectFirstPlistPerDirectory(rootNode, summaryList);
+        collectFirstPlistPerDirectory(filteredRoot != null ? filteredRoot : rootNode, summaryList);
+        java.util.List<ThumbnailGrid.Item> items = new java.util.ArrayList<>(summaryList.size());
         for (PlistFileNode node : summaryList) {
-            addThumbnailItemIncremental(node);
+            items.add(new ThumbnailGrid.Item(node.getFilePath(), node.getDisplayName()));
         }
-        thumbnailsPanel.revalidate();
-        thumbnailsPanel.repaint();
+        thumbnailGrid.setItems(items);
     }
 
     private void collectFirstPlistPerDirectory(DefaultMutableTreeNode dirNode, java.util.List<PlistFileNode> out) {
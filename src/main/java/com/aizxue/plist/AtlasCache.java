@@ -0,0 +1,349 @@
+package com.aizxue.plist;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已解析图集缓存
+ * 以 规范路径 + 修改时间 + 文件大小 为键缓存TextureAtlasInfo，重复打开同一图集文件时不再重新解析。
+ * 可选地持久化到一个紧凑的二进制索引文件，启动时通过一次内存映射读取整体载入，条目按需解码。
+ * 同一文件的所有调用方共享同一个TextureAtlasInfo：帧表与别名表为只读视图，FrameInfo构造后不可修改，
+ * 需要不同取值时另建对象（如MultipackAtlas的withAtlasIndex）。
+ */
+public class AtlasCache {
+
+    private static final int INDEX_MAGIC = 0x41544958; // "ATIX"
+    private static final int INDEX_VERSION = 3;
+    private static final String INDEX_FILE_NAME = "atlas-index.bin";
+
+    private static final AtlasCache INSTANCE = new AtlasCache(
+            Boolean.parseBoolean(System.getProperty("ddsviewer.atlasIndex", "true"))
+                    ? new File(Const.APP_CACHE_DIR, INDEX_FILE_NAME) : null);
+
+    // 缓存条目：info为空时表示尚未从磁盘数据中解码
+    private static class Entry {
+        final long lastModified;
+        final long length;
+        volatile PListParser.TextureAtlasInfo info;
+        volatile byte[] encoded;
+
+        Entry(long lastModified, long length, PListParser.TextureAtlasInfo info, byte[] encoded) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.info = info;
+            this.encoded = encoded;
+        }
+
+        boolean matches(long lastModified, long length) {
+            return this.lastModified == lastModified && this.length == length;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final File indexFile;
+    private volatile boolean loaded = false;
+    private volatile boolean dirty = false;
+
+    public AtlasCache(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public static AtlasCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取plist对应的图集信息，文件未变化时直接返回缓存结果；返回的对象与其他调用方共享，只读
+     */
+    public PListParser.TextureAtlasInfo get(File plistFile) throws Exception {
+        ensureLoaded();
+        String key = keyOf(plistFile);
+        long lastModified = plistFile.lastModified();
+        long length = plistFile.length();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.matches(lastModified, length)) {
+            PListParser.TextureAtlasInfo info = entry.info;
+            if (info == null) {
+                info = decodeEntry(entry);
+            }
+            if (info != null) {
+                return info;
+            }
+        }
+
+        PListParser.TextureAtlasInfo info = share(PListParser.parseAtlas(plistFile));
+        entries.put(key, new Entry(lastModified, length, info, null));
+        dirty = true;
+        return info;
+    }
+
+    /**
+     * 使指定文件的缓存失效
+     */
+    public void invalidate(File plistFile) {
+        try {
+            if (entries.remove(keyOf(plistFile)) != null) {
+                dirty = true;
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String keyOf(File file) throws IOException {
+        return file.getCanonicalPath();
+    }
+
+    // 放入缓存前把帧表与别名表换成只读视图，调用方误改时立即报错而不是悄悄影响其他调用方
+    private static PListParser.TextureAtlasInfo share(PListParser.TextureAtlasInfo info) {
+        info.frames = Collections.unmodifiableMap(info.frames);
+        info.aliases = Collections.unmodifiableMap(info.aliases);
+        return info;
+    }
+
+    private PListParser.TextureAtlasInfo decodeEntry(Entry entry) {
+        byte[] data = entry.encoded;
+        if (data == null) {
+            return entry.info;
+        }
+        try {
+            PListParser.TextureAtlasInfo info = share(readAtlas(new DataInputStream(new ByteArrayInputStream(data))));
+            entry.info = info;
+            entry.encoded = null;
+            return info;
+        } catch (IOException e) {
+            // 条目损坏则视为未命中，重新解析
+            return null;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            loaded = true;
+            if (indexFile != null && indexFile.isFile()) {
+                try {
+                    loadIndex();
+                    startPruning();
+                } catch (Exception e) {
+                    System.out.println("图集索引读取失败，将重新建立: " + e.getMessage());
+                    entries.clear();
+                }
+            }
+        }
+    }
+
+    // 一次映射整个索引文件并拷贝到堆内，随即释放映射，避免占用文件句柄影响后续写回
+    private void loadIndex() throws IOException {
+        byte[] data;
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("索引文件过大");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            data = new byte[(int) size];
+            mapped.get(data);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+            return;
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            long lastModified = in.readLong();
+            long length = in.readLong();
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+            entries.put(key, new Entry(lastModified, length, null, encoded));
+        }
+    }
+
+    /**
+     * 将缓存写回磁盘索引（先写临时文件再替换）；在退出时调用，只写出当前条目，不访问图集文件
+     */
+    public synchronized void save() {
+        if (indexFile == null || !dirty) return;
+        File dir = indexFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            // 快照当前条目，避免写入过程中并发修改导致数量不一致
+            Map<String, Entry> snapshot = new java.util.LinkedHashMap<>(entries);
+            out.writeInt(snapshot.size());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                Entry entry = e.getValue();
+                byte[] encoded = entry.encoded;
+                if (encoded == null) {
+                    buffer.reset();
+                    writeAtlas(new DataOutputStream(buffer), entry.info);
+                    encoded = buffer.toByteArray();
+                }
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.length);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+        } catch (IOException e) {
+            System.out.println("图集索引写入失败: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (indexFile.exists() && !indexFile.delete()) {
+            tmp.delete();
+            return;
+        }
+        if (tmp.renameTo(indexFile)) {
+            dirty = false;
+        }
+    }
+
+    // 索引覆盖打开过的所有文件夹，逐个检查文件很慢，放到低优先级的后台线程
+    private void startPruning() {
+        Thread thread = new Thread(this::pruneStale, "atlas-index-prune");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // 移除文件已删除或已被修改的条目，后者下次打开时会重新解析；退出时未检查完的留到下次
+    private void pruneStale() {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            File file = new File(e.getKey());
+            Entry entry = e.getValue();
+            if (!file.isFile() || !entry.matches(file.lastModified(), file.length())) {
+                if (entries.remove(e.getKey(), entry)) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    // ---- 二进制编码 ----
+
+    private static final int HAS_FRAME = 1;
+    private static final int HAS_OFFSET = 1 << 1;
+    private static final int HAS_SOURCE_COLOR_RECT = 1 << 2;
+    private static final int HAS_SOURCE_SIZE = 1 << 3;
+    private static final int ROTATED = 1 << 4;
+
+    static void writeAtlas(DataOutputStream out, PListParser.TextureAtlasInfo info) throws IOException {
+        writeString(out, info.textureFileName);
+        writeString(out, info.realTextureFileName);
+        writeString(out, info.pixelFormat);
+        writeSize(out, info.textureSize);
+        out.writeInt(info.format);
+        out.writeInt(info.frames.size());
+        for (Map.Entry<String, PListParser.FrameInfo> e : info.frames.entrySet()) {
+            PListParser.FrameInfo frame = e.getValue();
+            out.writeUTF(e.getKey());
+            int flags = 0;
+            if (frame.frame != null) flags |= HAS_FRAME;
+            if (frame.offset != null) flags |= HAS_OFFSET;
+            if (frame.sourceColorRect != null) flags |= HAS_SOURCE_COLOR_RECT;
+            if (frame.sourceSize != null) flags |= HAS_SOURCE_SIZE;
+            if (frame.rotated) flags |= ROTATED;
+            out.writeByte(flags);
+            if (frame.frame != null) writeRect(out, frame.frame);
+            if (frame.offset != null) {
+                out.writeInt(frame.offset.x);
+                out.writeInt(frame.offset.y);
+            }
+            if (frame.sourceColorRect != null) writeRect(out, frame.sourceColorRect);
+            if (frame.sourceSize != null) {
+                out.writeInt(frame.sourceSize.width);
+                out.writeInt(frame.sourceSize.height);
+            }
+        }
+        // 别名只记录指向的帧名，读取时共享同一个FrameInfo
+        out.writeInt(info.aliases.size());
+        for (Map.Entry<String, PListParser.FrameInfo> e : info.aliases.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeUTF(e.getValue().name);
+        }
+    }
+
+    static PListParser.TextureAtlasInfo readAtlas(DataInputStream in) throws IOException {
+        PListParser.TextureAtlasInfo info = new PListParser.TextureAtlasInfo();
+        info.textureFileName = readString(in);
+        info.realTextureFileName = readString(in);
+        info.pixelFormat = readString(in);
+        info.textureSize = readSize(in);
+        info.format = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            int flags = in.readUnsignedByte();
+            Rectangle rect = (flags & HAS_FRAME) != 0 ? readRect(in) : null;
+            Point offset = (flags & HAS_OFFSET) != 0 ? new Point(in.readInt(), in.readInt()) : null;
+            Rectangle colorRect = (flags & HAS_SOURCE_COLOR_RECT) != 0 ? readRect(in) : null;
+            Dimension sourceSize = (flags & HAS_SOURCE_SIZE) != 0 ? new Dimension(in.readInt(), in.readInt()) : null;
+            PListParser.FrameInfo frame = new PListParser.FrameInfo(name, rect, offset,
+                    (flags & ROTATED) != 0, colorRect, sourceSize, 0);
+            info.frames.put(name, frame);
+        }
+        int aliasCount = in.readInt();
+        for (int i = 0; i < aliasCount; i++) {
+            String alias = in.readUTF();
+            PListParser.FrameInfo frame = info.frames.get(in.readUTF());
+            if (frame != null) {
+                info.aliases.put(alias, frame);
+            }
+        }
+        info.indexSequences();
+        return info;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeSize(DataOutputStream out, Dimension size) throws IOException {
+        out.writeBoolean(size != null);
+        if (size != null) {
+            out.writeInt(size.width);
+            out.writeInt(size.height);
+        }
+    }
+
+    private static Dimension readSize(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Dimension(in.readInt(), in.readInt()) : null;
+    }
+
+    private static void writeRect(DataOutputStream out, Rectangle rect) throws IOException {
+        out.writeInt(rect.x);
+        out.writeInt(rect.y);
+        out.writeInt(rect.width);
+        out.writeInt(rect.height);
+    }
+
+    private static Rectangle readRect(DataInputStream in) throws IOException {
+        return new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+}
@@ -0,0 +1,222 @@
+package com.aizxue.plist;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 按字节预算淘汰的LRU缓存
+ * 每个条目的大小由Weigher计算，总大小超出预算（或条目数超出上限）时淘汰最久未访问的条目；
+ * 单个条目超过预算时不缓存。线程安全，并统计命中、未命中与淘汰次数。
+ * 正在使用的条目可以钉住（引用计数），钉住期间不会被淘汰但仍计入占用；
+ * 缓存之外长期持有的图像（如预取的合成帧）可登记为外部占用，一并计入预算。
+ */
+public class ByteBudgetCache<K, V> {
+
+    /**
+     * 计算条目占用的字节数
+     */
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    /**
+     * 条目被淘汰时回调；在缓存锁内调用，不应再访问本缓存
+     */
+    public interface EvictionListener<K, V> {
+        void onEvicted(K key, V value);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private final long budgetBytes;
+    private final int maxEntries;
+    private final Weigher<V> weigher;
+    private final EvictionListener<K, V> evictionListener;
+    // accessOrder=true：迭代顺序即从最久未访问到最近访问
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weightedSize = 0;
+    // 键 -> 钉住次数；与条目分开保存，键尚未放入时也可先钉住
+    private final Map<K, Integer> pins = new HashMap<>();
+    private long externalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ByteBudgetCache(long budgetBytes, Weigher<V> weigher) {
+        this(budgetBytes, Integer.MAX_VALUE, weigher, null);
+    }
+
+    /**
+     * @param maxEntries       条目数上限
+     * @param evictionListener 淘汰回调，可为null
+     */
+    public ByteBudgetCache(long budgetBytes, int maxEntries, Weigher<V> weigher, EvictionListener<K, V> evictionListener) {
+        if (budgetBytes <= 0 || maxEntries <= 0) throw new IllegalArgumentException("预算必须大于0");
+        this.budgetBytes = budgetBytes;
+        this.maxEntries = maxEntries;
+        this.weigher = weigher;
+        this.evictionListener = evictionListener;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * 是否包含该键；不计入统计，也不改变访问顺序
+     */
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * 放入条目并按需淘汰；条目本身超过预算时不缓存
+     */
+    public synchronized void put(K key, V value) {
+        long weight = weigher.weigh(value);
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            weightedSize -= previous.weight;
+        }
+        if (weight > budgetBytes) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, weight));
+        weightedSize += weight;
+        evictToBudget(key);
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) return null;
+        weightedSize -= entry.weight;
+        return entry.value;
+    }
+
+    /**
+     * 移除所有满足条件的键，返回移除数量（不计入淘汰次数）
+     */
+    public synchronized int removeIf(Predicate<? super K> predicate) {
+        int removed = 0;
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey())) {
+                weightedSize -= e.getValue().weight;
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 钉住条目，使其在unpin之前不被淘汰；可重复调用，需与unpin成对
+     */
+    public synchronized void pin(K key) {
+        pins.merge(key, 1, Integer::sum);
+    }
+
+    public synchronized void unpin(K key) {
+        Integer count = pins.get(key);
+        if (count == null) return;
+        if (count > 1) {
+            pins.put(key, count - 1);
+        } else {
+            pins.remove(key);
+            // 钉住期间可能已超出预算
+            evictToBudget(null);
+        }
+    }
+
+    /**
+     * 调整缓存之外持有的字节数（可为负），增加时按需淘汰未钉住的条目
+     */
+    public synchronized void addExternalBytes(long delta) {
+        externalBytes += delta;
+        if (delta > 0) {
+            evictToBudget(null);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weightedSize = 0;
+    }
+
+    // justAdded与钉住的条目不淘汰；全部钉住时允许暂时超出预算
+    private void evictToBudget(K justAdded) {
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+             it.hasNext() && (weightedSize + externalBytes > budgetBytes || entries.size() > maxEntries); ) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (e.getKey().equals(justAdded) || pins.containsKey(e.getKey())) continue;
+            weightedSize -= e.getValue().weight;
+            it.remove();
+            evictions.incrementAndGet();
+            if (evictionListener != null) {
+                evictionListener.onEvicted(e.getKey(), e.getValue().value);
+            }
+        }
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getWeightedSize() {
+        return weightedSize;
+    }
+
+    public synchronized long getExternalBytes() {
+        return externalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        int pinned;
+        long external;
+        synchronized (this) {
+            pinned = pins.size();
+            external = externalBytes;
+        }
+        return String.format("条目 %d (钉住 %d), 占用 %.1f + 外部 %.1f / %.1f MB, 命中 %d, 未命中 %d, 命中率 %.1f%%, 淘汰 %d",
+                size(), pinned, getWeightedSize() / 1048576.0, external / 1048576.0, budgetBytes / 1048576.0,
+                hitCount, misses.get(), total == 0 ? 0.0 : hitCount * 100.0 / total, evictions.get());
+    }
+}
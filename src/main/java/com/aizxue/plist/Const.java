@@ -31,4 +31,8 @@ public class Const {
             "SOFTWARE.\n";
     public static final String APP_LICENSE_URL = "https://mit-license.org/";
     public static final String APP_JAVA_VERSION = "1.8";
+    // 播放帧率上限（主动渲染模式可达到120fps以上）
+    public static final double APP_MAX_PLAYBACK_FPS = 240;
+    // 本地缓存目录（图集索引等持久化数据）
+    public static final String APP_CACHE_DIR = System.getProperty("user.home") + java.io.File.separator + ".ddsviewer";
 }
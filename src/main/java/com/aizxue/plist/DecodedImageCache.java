@@ -0,0 +1,135 @@
+package com.aizxue.plist;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局共享的已解码图像缓存：纹理图集与合成后的帧共用一个字节预算
+ * 预算默认取 1GiB 与最大堆一半中的较小值，可通过 -Dddsviewer.cacheBytes=字节数 配置。
+ * 在最近打开过的动画之间来回切换时直接命中，无需重新解码与合成。纹理的解码入口见TextureRegistry。
+ * 正在使用的纹理经TextureRegistry的租约钉住，预取环中的合成帧以外部占用计入预算。
+ */
+public class DecodedImageCache {
+
+    private static final ByteBudgetCache<Object, BufferedImage> CACHE =
+            new ByteBudgetCache<>(configuredBudget(), DecodedImageCache::weigh);
+
+    // 图集对象 -> 编号；帧的键只记编号而不引用图集本身，图集被淘汰后可正常回收
+    private static final Map<BufferedImage, Long> ATLAS_IDS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicLong NEXT_ATLAS_ID = new AtomicLong();
+
+    public static ByteBudgetCache<Object, BufferedImage> getInstance() {
+        return CACHE;
+    }
+
+    private static long configuredBudget() {
+        long defaultBudget = Math.min(1L << 30, Runtime.getRuntime().maxMemory() / 2);
+        try {
+            return Long.parseLong(System.getProperty("ddsviewer.cacheBytes", String.valueOf(defaultBudget)));
+        } catch (NumberFormatException e) {
+            return defaultBudget;
+        }
+    }
+
+    /**
+     * 图像栅格实际占用的字节数
+     */
+    public static long weigh(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * 纹理在缓存中的键：规范路径 + 修改时间 + 文件大小，文件被修改后自然失效
+     */
+    public static Object textureKey(File textureFile) throws IOException {
+        return new TextureKey(textureFile);
+    }
+
+    /**
+     * 键是否属于指定纹理文件（不论修改时间与大小）
+     */
+    public static boolean isTextureKeyOf(Object key, String canonicalPath) {
+        return key instanceof TextureKey && ((TextureKey) key).path.equals(canonicalPath);
+    }
+
+    /**
+     * 帧在缓存中的键：所属图集 + 帧在图集中的几何信息
+     */
+    public static Object frameKey(BufferedImage atlas, PListParser.FrameInfo frame) {
+        Long atlasId;
+        synchronized (ATLAS_IDS) {
+            atlasId = ATLAS_IDS.get(atlas);
+            if (atlasId == null) {
+                atlasId = NEXT_ATLAS_ID.incrementAndGet();
+                ATLAS_IDS.put(atlas, atlasId);
+            }
+        }
+        return new FrameKey(atlasId, frame);
+    }
+
+    private static final class TextureKey {
+        final String path;
+        final long lastModified;
+        final long length;
+
+        TextureKey(File file) throws IOException {
+            this.path = file.getCanonicalPath();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TextureKey)) return false;
+            TextureKey other = (TextureKey) o;
+            return lastModified == other.lastModified && length == other.length && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(lastModified);
+        }
+    }
+
+    private static final class FrameKey {
+        final long atlasId;
+        final String name;
+        final Rectangle frame;
+        final boolean rotated;
+        final Rectangle sourceColorRect;
+        final Dimension sourceSize;
+
+        FrameKey(long atlasId, PListParser.FrameInfo info) {
+            this.atlasId = atlasId;
+            this.name = info.name;
+            this.frame = info.frame;
+            this.rotated = info.rotated;
+            this.sourceColorRect = info.sourceColorRect;
+            this.sourceSize = info.sourceSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FrameKey)) return false;
+            FrameKey other = (FrameKey) o;
+            return atlasId == other.atlasId && rotated == other.rotated && Objects.equals(name, other.name)
+                    && Objects.equals(frame, other.frame) && Objects.equals(sourceColorRect, other.sourceColorRect)
+                    && Objects.equals(sourceSize, other.sourceSize);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(atlasId, name, frame);
+        }
+    }
+}
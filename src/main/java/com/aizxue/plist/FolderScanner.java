@@ -0,0 +1,227 @@
+package com.aizxue.plist;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行的文件夹扫描器
+ * 每个目录作为一个独立任务提交到work-stealing线程池，不做递归调用；
+ * 目录读取使用DirectoryStream与BasicFileAttributes，按文件唯一标识检测符号链接造成的循环。
+ * 每个目录的结果进入合并队列，由EDT成批取出，避免每个节点一次invokeLater。
+ * 父目录的结果总是先于子目录进入队列。
+ */
+public class FolderScanner {
+
+    // 单次在EDT上处理批次的时间上限，超出后让出EDT，剩余部分下次处理
+    private static final long EDT_SLICE_NANOS = 8_000_000L;
+
+    /**
+     * 一个目录的扫描结果，子目录与图集文件均已按名称排序
+     */
+    public static final class Listing {
+        public final Path directory;
+        public final List<Path> subdirectories;
+        public final List<Path> atlasFiles;
+        // 图集文件的属性（修改时间、大小），供目录清单校验使用
+        public final Map<Path, BasicFileAttributes> atlasAttributes;
+
+        Listing(Path directory, List<Path> subdirectories, List<Path> atlasFiles,
+                Map<Path, BasicFileAttributes> atlasAttributes) {
+            this.directory = directory;
+            this.subdirectories = subdirectories;
+            this.atlasFiles = atlasFiles;
+            this.atlasAttributes = atlasAttributes;
+        }
+    }
+
+    /**
+     * 扫描结果回调，均在EDT调用
+     */
+    public interface Listener {
+        void published(List<Listing> batch);
+
+        void finished(boolean cancelled);
+    }
+
+    private static final Comparator<Path> BY_NAME =
+            (a, b) -> a.getFileName().toString().compareToIgnoreCase(b.getFileName().toString());
+
+    private final Path root;
+    private final Listener listener;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<Listing> results = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainPending = new AtomicBoolean(false);
+    private final Set<Object> visited = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final AtomicInteger directoryCount = new AtomicInteger();
+    private final AtomicInteger fileCount = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile boolean completed = false;
+    private boolean finishedReported = false; // 仅EDT访问
+
+    public FolderScanner(Path root, Listener listener) {
+        this.root = root;
+        this.listener = listener;
+        this.pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    public void start() {
+        submit(root);
+    }
+
+    /**
+     * 取消扫描；已入队的结果不再发布，随后在EDT回调finished(true)
+     */
+    public void cancel() {
+        cancelled = true;
+        pool.shutdownNow();
+        scheduleDrain();
+    }
+
+    public int getDirectoryCount() {
+        return directoryCount.get();
+    }
+
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    private void submit(Path directory) {
+        pendingTasks.incrementAndGet();
+        try {
+            pool.execute(() -> {
+                try {
+                    if (!cancelled) {
+                        scan(directory);
+                    }
+                } finally {
+                    taskDone();
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            taskDone(); // 已取消
+        }
+    }
+
+    private void taskDone() {
+        if (pendingTasks.decrementAndGet() == 0) {
+            completed = true;
+            pool.shutdown();
+            scheduleDrain();
+        }
+    }
+
+    private void scan(Path directory) {
+        if (!markVisited(directory)) return;
+        List<Path> subdirectories = new ArrayList<>();
+        List<Path> atlasFiles = new ArrayList<>();
+        Map<Path, BasicFileAttributes> atlasAttributes = new HashMap<>();
+        List<File> textures = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                if (cancelled) return;
+                BasicFileAttributes attrs;
+                try {
+                    // 跟随符号链接读取属性，与File.isDirectory行为一致
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // 失效的链接等
+                }
+                if (attrs.isDirectory()) {
+                    subdirectories.add(entry);
+                } else if (attrs.isRegularFile()) {
+                    String lowerName = entry.getFileName().toString().toLowerCase(Locale.ROOT);
+                    File file = entry.toFile();
+                    if (PListParser.isAtlasFile(file)) {
+                        atlasFiles.add(entry);
+                        atlasAttributes.put(entry, attrs);
+                    } else if (lowerName.endsWith(".png") || lowerName.endsWith(".jpg")
+                            || lowerName.endsWith(".jpeg") || lowerName.endsWith(".dds")) {
+                        textures.add(file);
+                    }
+                }
+            }
+        } catch (IOException | SecurityException e) {
+            return; // 无权限等，跳过该目录
+        }
+        TextureIndex.register(directory.toFile(), textures.toArray(new File[0]));
+
+        subdirectories.sort(BY_NAME);
+        atlasFiles.sort(BY_NAME);
+        directoryCount.incrementAndGet();
+        fileCount.addAndGet(atlasFiles.size());
+        // 先发布本目录，再提交子目录，保证EDT先看到父节点
+        results.add(new Listing(directory, subdirectories, atlasFiles, atlasAttributes));
+        scheduleDrain();
+        for (Path subdirectory : subdirectories) {
+            submit(subdirectory);
+        }
+    }
+
+    // 以文件唯一标识（inode等）记录访问过的目录，符号链接指回上级目录时不会无限循环
+    private boolean markVisited(Path directory) {
+        try {
+            Object key = Files.readAttributes(directory, BasicFileAttributes.class).fileKey();
+            if (key == null) {
+                key = directory.toRealPath();
+            }
+            return visited.add(key);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainPending.set(false);
+        if (finishedReported) return;
+        if (cancelled) {
+            results.clear();
+            finishedReported = true;
+            listener.finished(true);
+            return;
+        }
+        long deadline = System.nanoTime() + EDT_SLICE_NANOS;
+        List<Listing> batch = new ArrayList<>();
+        Listing listing;
+        while (System.nanoTime() < deadline && (listing = results.poll()) != null) {
+            batch.add(listing);
+            if (batch.size() >= 256) {
+                listener.published(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            listener.published(batch);
+        }
+        if (!results.isEmpty()) {
+            scheduleDrain(); // 超出时间片，剩余部分稍后处理
+        } else if (completed) {
+            finishedReported = true;
+            listener.finished(false);
+        }
+    }
+}
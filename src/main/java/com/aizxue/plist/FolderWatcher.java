@@ -0,0 +1,251 @@
+package com.aizxue.plist;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于WatchService的文件夹监视器
+ * 监听扫描得到的所有目录，把创建、删除、修改事件合并去抖后成批交给EDT：
+ * 导出工具一次写出大量文件时，安静一段时间（或最长等待时间到达）才发布一次。
+ * 发布时按文件的最终状态归类，先删后建的文件视为修改；新建的目录会被登记监听并展开其内容。
+ */
+public class FolderWatcher {
+
+    // 最后一个事件之后的安静时间
+    private static final long QUIET_MILLIS = 300;
+    // 事件持续不断时的最长等待时间
+    private static final long MAX_DELAY_MILLIS = 2000;
+
+    /**
+     * 一批文件变化；present保持事件顺序，新目录总在其内容之前
+     */
+    public static final class ChangeSet {
+        // 仍然存在的变化路径 -> 是否为目录
+        public final Map<Path, Boolean> present;
+        // 已不存在的路径
+        public final Set<Path> removed;
+        // 事件溢出的目录，需要整体与磁盘对账
+        public final Set<Path> overflowed;
+
+        ChangeSet(Map<Path, Boolean> present, Set<Path> removed, Set<Path> overflowed) {
+            this.present = present;
+            this.removed = removed;
+            this.overflowed = overflowed;
+        }
+    }
+
+    /**
+     * 变化回调，在EDT调用
+     */
+    public interface Listener {
+        void changed(ChangeSet changes);
+    }
+
+    private final Listener listener;
+    private final WatchService watchService;
+    // 以下仅监视线程访问
+    private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private final Set<Path> pendingPaths = new LinkedHashSet<>();
+    private final Set<Path> pendingOverflow = new LinkedHashSet<>();
+    private List<Path> initialDirectories;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    public FolderWatcher(Listener listener) throws IOException {
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "folder-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 开始监视已扫描的目录；目录很多时登记本身也在监视线程完成
+     */
+    public void start(Collection<Path> directories) {
+        initialDirectories = new ArrayList<>(directories);
+        thread.start();
+    }
+
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException ignore) {
+        }
+        thread.interrupt();
+    }
+
+    private void run() {
+        for (Path directory : initialDirectories) {
+            if (closed || !register(directory)) break;
+        }
+        initialDirectories = null;
+
+        long firstEventAt = 0;
+        long lastEventAt = 0;
+        try {
+            while (!closed) {
+                WatchKey key;
+                if (pendingPaths.isEmpty() && pendingOverflow.isEmpty()) {
+                    key = watchService.take();
+                    firstEventAt = 0;
+                } else {
+                    long now = System.currentTimeMillis();
+                    long flushAt = Math.min(lastEventAt + QUIET_MILLIS, firstEventAt + MAX_DELAY_MILLIS);
+                    if (now >= flushAt) {
+                        flush();
+                        continue;
+                    }
+                    key = watchService.poll(flushAt - now, TimeUnit.MILLISECONDS);
+                    if (key == null) continue;
+                }
+                Path directory = watchKeys.get(key);
+                if (directory != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            pendingOverflow.add(directory);
+                        } else {
+                            pendingPaths.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    lastEventAt = System.currentTimeMillis();
+                    if (firstEventAt == 0) {
+                        firstEventAt = lastEventAt;
+                    }
+                }
+                if (!key.reset()) {
+                    // 目录已删除或不可访问
+                    watchKeys.remove(key);
+                    watchedDirectories.remove(directory);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 已关闭
+        }
+    }
+
+    // 按最终状态归类后发布；新目录递归登记并把其中内容作为新增一并发布
+    private void flush() {
+        Map<Path, Boolean> present = new LinkedHashMap<>();
+        Set<Path> removed = new LinkedHashSet<>();
+        for (Path path : pendingPaths) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                removed.add(path);
+                continue;
+            }
+            if (attrs.isDirectory()) {
+                if (!watchedDirectories.contains(path)) {
+                    addDirectoryTree(path, present);
+                } else {
+                    present.put(path, Boolean.TRUE);
+                }
+            } else if (attrs.isRegularFile() && isRelevant(path)) {
+                present.put(path, Boolean.FALSE);
+            }
+        }
+        // 事件溢出的目录无法知道具体变化，当前内容全部按变化处理，已消失的由EDT对账移除
+        for (Path directory : pendingOverflow) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    if (Files.isDirectory(entry)) {
+                        if (!watchedDirectories.contains(entry)) {
+                            addDirectoryTree(entry, present);
+                        }
+                    } else if (isRelevant(entry)) {
+                        present.put(entry, Boolean.FALSE);
+                    }
+                }
+            } catch (IOException e) {
+                removed.add(directory);
+            }
+        }
+        Set<Path> overflowed = new LinkedHashSet<>(pendingOverflow);
+        pendingPaths.clear();
+        pendingOverflow.clear();
+        if (present.isEmpty() && removed.isEmpty() && overflowed.isEmpty()) return;
+        ChangeSet changes = new ChangeSet(present, removed, overflowed);
+        SwingUtilities.invokeLater(() -> {
+            if (!closed) {
+                listener.changed(changes);
+            }
+        });
+    }
+
+    // 新目录在登记监听之前可能已被写入文件，登记后再遍历一次补上
+    private void addDirectoryTree(Path root, Map<Path, Boolean> present) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!register(dir)) return FileVisitResult.TERMINATE;
+                    present.put(dir, Boolean.TRUE);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && isRelevant(file)) {
+                        present.put(file, Boolean.FALSE);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.out.println("遍历新目录失败: " + root + " - " + e.getMessage());
+        }
+    }
+
+    private boolean register(Path directory) {
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, directory);
+            watchedDirectories.add(directory);
+            return true;
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        } catch (IOException e) {
+            // 超出系统监视数量上限（如inotify的max_user_watches）时不再继续登记
+            System.out.println("无法监视目录: " + directory + " - " + e.getMessage());
+            return !(e.getMessage() != null && e.getMessage().contains("limit"));
+        }
+    }
+
+    // 只关心图集与纹理文件，导出工具的临时文件等忽略
+    private static boolean isRelevant(Path path) {
+        String lowerName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return PListParser.isAtlasFile(path.toFile()) || TextureIndex.isTextureName(lowerName);
+    }
+}
@@ -0,0 +1,118 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 合成帧缓存
+ * 每次加载图集后，每帧只合成一次，之后重绘直接复用，稳定播放时不再分配新图像。
+ * 支持后台预先烘焙全部帧，也可在首次显示时按需合成。
+ * 合成结果存放在共享的DecodedImageCache中，受全局字节预算约束；切换回最近的动画时可直接复用。
+ */
+public class FrameCache {
+
+    /**
+     * 帧所在纹理的查询方式（multipack时不同帧对应不同纹理页）
+     */
+    public interface AtlasSource {
+        BufferedImage getAtlas(PListParser.FrameInfo frame);
+    }
+
+    private static final ExecutorService BAKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "frame-baker");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+
+    private final ByteBudgetCache<Object, BufferedImage> baked = DecodedImageCache.getInstance();
+    private final AtlasSource atlasSource;
+    private volatile boolean disposed = false;
+    private Future<?> bakeTask;
+
+    public FrameCache(AtlasSource atlasSource) {
+        this.atlasSource = atlasSource;
+    }
+
+    /**
+     * 获取合成后的帧，未缓存时立即合成；纹理尚未就绪时返回null
+     */
+    public BufferedImage get(PListParser.FrameInfo frame) {
+        return get(frame, null);
+    }
+
+    /**
+     * 同get，未命中时把合成各阶段耗时记入profiler（可为null）
+     */
+    public BufferedImage get(PListParser.FrameInfo frame, FrameProfiler profiler) {
+        BufferedImage atlas = atlasSource.getAtlas(frame);
+        if (atlas == null) {
+            return null;
+        }
+        BufferedImage image = baked.get(DecodedImageCache.frameKey(atlas, frame));
+        if (image != null) {
+            return image;
+        }
+        return bake(atlas, frame, profiler);
+    }
+
+    /**
+     * 仅返回已缓存的帧，不触发合成
+     */
+    public BufferedImage peek(PListParser.FrameInfo frame) {
+        BufferedImage atlas = atlasSource.getAtlas(frame);
+        return atlas == null ? null : baked.get(DecodedImageCache.frameKey(atlas, frame));
+    }
+
+    private BufferedImage bake(BufferedImage atlas, PListParser.FrameInfo frame, FrameProfiler profiler) {
+        BufferedImage image = FrameCompositor.compose(atlas, frame, profiler);
+        if (image != null && !disposed) {
+            baked.put(DecodedImageCache.frameKey(atlas, frame), image);
+        }
+        return image;
+    }
+
+    /**
+     * 在后台线程按给定顺序预先烘焙帧（从startIndex开始循环一遍）
+     */
+    public synchronized void prebakeAsync(List<PListParser.FrameInfo> frames, int startIndex) {
+        if (frames == null || frames.isEmpty()) return;
+        cancelPrebake();
+        final List<PListParser.FrameInfo> order = new ArrayList<>(frames);
+        final int start = Math.max(0, Math.min(startIndex, order.size() - 1));
+        bakeTask = BAKER.submit(() -> {
+            int size = order.size();
+            for (int i = 0; i < size; i++) {
+                if (disposed || Thread.currentThread().isInterrupted()) return;
+                PListParser.FrameInfo frame = order.get((start + i) % size);
+                BufferedImage atlas = atlasSource.getAtlas(frame);
+                if (atlas != null && !baked.containsKey(DecodedImageCache.frameKey(atlas, frame))) {
+                    try {
+                        bake(atlas, frame, null);
+                    } catch (RuntimeException e) {
+                        // 单帧失败不影响其余帧，显示时会再次尝试
+                    }
+                }
+            }
+        });
+    }
+
+    private void cancelPrebake() {
+        if (bakeTask != null) {
+            bakeTask.cancel(true);
+            bakeTask = null;
+        }
+    }
+
+    /**
+     * 停止后台烘焙；已合成的帧留在共享缓存中，由字节预算按LRU淘汰
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        cancelPrebake();
+    }
+}
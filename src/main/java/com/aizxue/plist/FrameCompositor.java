@@ -0,0 +1,216 @@
+package com.aizxue.plist;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * 帧合成：从纹理图集中切出一帧，还原旋转，并按sourceColorRect放到sourceSize大小的画布上
+ */
+public class FrameCompositor {
+
+    /**
+     * 合成一帧完整图像，帧矩形为空时返回null
+     * 直接在int[]像素上完成切图与旋转，不经过Graphics2D，旋转结果逐像素精确
+     */
+    public static BufferedImage compose(BufferedImage atlas, PListParser.FrameInfo frameInfo) {
+        return compose(atlas, frameInfo, null);
+    }
+
+    /**
+     * 合成一帧，并把切图、旋转、合成各阶段耗时记入profiler（可为null）
+     */
+    public static BufferedImage compose(BufferedImage atlas, PListParser.FrameInfo frameInfo, FrameProfiler profiler) {
+        Rectangle frameRect = frameInfo.frame;
+        if (frameRect == null) return null;
+
+        int atlasWidth = atlas.getWidth();
+        int atlasHeight = atlas.getHeight();
+
+        // 计算切图区域的起始坐标和尺寸
+        int startX = frameRect.x;
+        int startY = frameRect.y;
+        int cropWidth, cropHeight;
+
+        if (frameInfo.rotated) {
+            // 对于旋转的子图，结束坐标为 (x+h, y+w)
+            // 这意味着在atlas中，宽度和高度已经交换了
+            cropWidth = frameRect.height;  // 使用height作为宽度
+            cropHeight = frameRect.width;  // 使用width作为高度
+        } else {
+            // 对于不旋转的子图，结束坐标为 (x+w, y+h)
+            cropWidth = frameRect.width;
+            cropHeight = frameRect.height;
+        }
+
+        // 边界检查，确保不超出atlas范围
+        int safeX = Math.max(0, Math.min(startX, atlasWidth - 1));
+        int safeY = Math.max(0, Math.min(startY, atlasHeight - 1));
+        int safeWidth = Math.min(cropWidth, atlasWidth - safeX);
+        int safeHeight = Math.min(cropHeight, atlasHeight - safeY);
+        if (safeWidth <= 0 || safeHeight <= 0) return null;
+
+        // 从atlas中读取像素，旋转帧逆时针旋转90度恢复原始方向
+        long stageStart = profiler != null ? System.nanoTime() : 0L;
+        int[] pixels = readPixels(atlas, safeX, safeY, safeWidth, safeHeight);
+        int contentWidth = safeWidth;
+        int contentHeight = safeHeight;
+        if (profiler != null) {
+            long now = System.nanoTime();
+            profiler.addStage(FrameProfiler.Stage.EXTRACT, now - stageStart);
+            stageStart = now;
+        }
+        if (frameInfo.rotated) {
+            pixels = rotatePixels(pixels, safeWidth, safeHeight, 3);
+            contentWidth = safeHeight;
+            contentHeight = safeWidth;
+            if (profiler != null) {
+                long now = System.nanoTime();
+                profiler.addStage(FrameProfiler.Stage.ROTATE, now - stageStart);
+                stageStart = now;
+            }
+        }
+
+        // 正确处理TexturePacker的坐标系统
+        // sourceSize: 原始图像的完整尺寸
+        // sourceColorRect: 有效像素区域在原始图像中的位置和尺寸
+        int canvasWidth = frameInfo.sourceSize != null ? frameInfo.sourceSize.width : contentWidth;
+        int canvasHeight = frameInfo.sourceSize != null ? frameInfo.sourceSize.height : contentHeight;
+        if (canvasWidth <= 0 || canvasHeight <= 0) return null;
+        BufferedImage frameImage = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+
+        // sourceColorRect定义了实际内容在sourceSize画布中的位置
+        int drawX = 0, drawY = 0;
+        if (frameInfo.sourceColorRect != null) {
+            drawX += frameInfo.sourceColorRect.x;
+            drawY += frameInfo.sourceColorRect.y;
+        }
+
+        // 画布默认全透明，SrcOver等价于直接拷贝；超出画布的部分裁掉
+        int clipX = Math.max(drawX, 0);
+        int clipY = Math.max(drawY, 0);
+        int clipW = Math.min(drawX + contentWidth, canvasWidth) - clipX;
+        int clipH = Math.min(drawY + contentHeight, canvasHeight) - clipY;
+        if (clipW > 0 && clipH > 0) {
+            if (clipW != contentWidth || clipH != contentHeight) {
+                pixels = cropPixels(pixels, contentWidth, clipX - drawX, clipY - drawY, clipW, clipH);
+            }
+            // 通过setDataElements写入，图像仍可被Java2D加速
+            frameImage.getRaster().setDataElements(clipX, clipY, clipW, clipH, pixels);
+        }
+        if (profiler != null) {
+            profiler.addStage(FrameProfiler.Stage.COMPOSITE, System.nanoTime() - stageStart);
+        }
+        return frameImage;
+    }
+
+    // 读取ARGB像素；INT_ARGB图集直接取栅格数据，避免逐像素颜色模型转换
+    private static int[] readPixels(BufferedImage image, int x, int y, int w, int h) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return (int[]) image.getRaster().getDataElements(x, y, w, h, null);
+        }
+        return image.getRGB(x, y, w, h, null, 0, w);
+    }
+
+    private static int[] cropPixels(int[] pixels, int stride, int x, int y, int w, int h) {
+        int[] out = new int[w * h];
+        for (int row = 0; row < h; row++) {
+            System.arraycopy(pixels, (y + row) * stride + x, out, row * w, w);
+        }
+        return out;
+    }
+
+    // 分块大小：源与目标各一块 64x64 int 共32KB，可放入L1/L2缓存
+    private static final int BLOCK = 64;
+
+    /**
+     * 对行优先存储的像素做无损的90度倍数旋转
+     * quadrants为顺时针旋转的象限数：1=顺时针90度，2=180度，3=逆时针90度
+     * 90/270度旋转按块转置，大帧时避免按列访问造成的缓存失效
+     */
+    public static int[] rotatePixels(int[] src, int width, int height, int quadrants) {
+        int q = ((quadrants % 4) + 4) % 4;
+        int[] dst = new int[width * height];
+        if (q == 0) {
+            System.arraycopy(src, 0, dst, 0, src.length);
+            return dst;
+        }
+        if (q == 2) {
+            for (int i = 0, n = width * height; i < n; i++) {
+                dst[n - 1 - i] = src[i];
+            }
+            return dst;
+        }
+        // 目标宽为height、高为width
+        int dstWidth = height;
+        for (int by = 0; by < height; by += BLOCK) {
+            int yEnd = Math.min(by + BLOCK, height);
+            for (int bx = 0; bx < width; bx += BLOCK) {
+                int xEnd = Math.min(bx + BLOCK, width);
+                for (int y = by; y < yEnd; y++) {
+                    int rowOffset = y * width;
+                    if (q == 1) {
+                        // 顺时针：src(x, y) -> dst(height-1-y, x)
+                        int dstCol = height - 1 - y;
+                        for (int x = bx; x < xEnd; x++) {
+                            dst[x * dstWidth + dstCol] = src[rowOffset + x];
+                        }
+                    } else {
+                        // 逆时针：src(x, y) -> dst(y, width-1-x)
+                        for (int x = bx; x < xEnd; x++) {
+                            dst[(width - 1 - x) * dstWidth + y] = src[rowOffset + x];
+                        }
+                    }
+                }
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * 合成后画布的尺寸（sourceSize，缺省时为帧本身尺寸）
+     */
+    public static Dimension canvasSize(PListParser.FrameInfo frameInfo) {
+        if (frameInfo.sourceSize != null) {
+            return frameInfo.sourceSize;
+        }
+        return frameInfo.frame != null ? frameInfo.frame.getSize() : new Dimension();
+    }
+
+    /**
+     * 不经过中间图像，直接从图集绘制一帧到目标Graphics2D
+     * (x, y) 为sourceSize画布左上角在目标上的位置；旋转帧通过象限旋转变换还原，像素一一对应
+     */
+    public static void drawDirect(Graphics2D g, BufferedImage atlas, PListParser.FrameInfo frameInfo, int x, int y) {
+        Rectangle frameRect = frameInfo.frame;
+        if (frameRect == null) return;
+
+        // 在atlas中的实际区域（旋转帧宽高互换），并做边界裁剪
+        int cropWidth = frameInfo.rotated ? frameRect.height : frameRect.width;
+        int cropHeight = frameInfo.rotated ? frameRect.width : frameRect.height;
+        int sx = Math.max(0, Math.min(frameRect.x, atlas.getWidth() - 1));
+        int sy = Math.max(0, Math.min(frameRect.y, atlas.getHeight() - 1));
+        int sw = Math.min(cropWidth, atlas.getWidth() - sx);
+        int sh = Math.min(cropHeight, atlas.getHeight() - sy);
+        if (sw <= 0 || sh <= 0) return;
+
+        int dx = x;
+        int dy = y;
+        if (frameInfo.sourceColorRect != null) {
+            dx += frameInfo.sourceColorRect.x;
+            dy += frameInfo.sourceColorRect.y;
+        }
+
+        if (!frameInfo.rotated) {
+            g.drawImage(atlas, dx, dy, dx + sw, dy + sh, sx, sy, sx + sw, sy + sh, null);
+            return;
+        }
+
+        // 旋转帧：图集中的(u, v)映射到 (dx + v, dy + sw - u)，即逆时针旋转90度
+        AffineTransform saved = g.getTransform();
+        g.translate(dx, dy + sw);
+        g.transform(AffineTransform.getQuadrantRotateInstance(3));
+        g.drawImage(atlas, 0, 0, sw, sh, sx, sy, sx + sw, sy + sh, null);
+        g.setTransform(saved);
+    }
+}
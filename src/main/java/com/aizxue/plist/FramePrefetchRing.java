@@ -0,0 +1,258 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 播放位置前方的合成帧预取环形缓冲
+ * 适用于全部预先烘焙放不进内存的超大动画：后台线程只合成播放方向上接下来的若干帧，
+ * 播放时只读取已就绪的帧；预取深度按实测的合成耗时与帧间隔自适应调整，
+ * 跳转或播放方向改变时整体作废重新预取。
+ * 槽位中的帧不在共享缓存里，其占用作为外部占用计入DecodedImageCache的预算。
+ */
+public class FramePrefetchRing {
+
+    private static final int CAPACITY = 128; // 槽位数，2的幂，且不小于最大深度的两倍
+    private static final int MASK = CAPACITY - 1;
+    private static final int MIN_DEPTH = 4;
+    private static final int MAX_DEPTH = 48;
+    // 环形缓冲最多占用的内存，超大帧时据此压低深度
+    private static final long MAX_RING_BYTES = 256L * 1024 * 1024;
+    private static final long RETRY_NANOS = 20_000_000L;  // 纹理页未就绪时的重试间隔
+    private static final long IDLE_NANOS = 100_000_000L;
+
+    // 一个槽位：帧序号 + 所属代次 + 合成结果
+    private static final class Slot {
+        final int index;
+        final long generation;
+        final BufferedImage image;
+
+        Slot(int index, long generation, BufferedImage image) {
+            this.index = index;
+            this.generation = generation;
+            this.image = image;
+        }
+    }
+
+    private final FrameCache.AtlasSource atlasSource;
+    private final PlaybackClock clock;
+    private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final Thread worker;
+
+    private volatile List<PListParser.FrameInfo> frames;
+    private volatile long generation = 0;
+    private volatile int playhead = -1;
+    private volatile int direction = 1;
+    private volatile int depth = MIN_DEPTH;
+    private volatile boolean disposed = false;
+    private volatile BufferedImage lastImage; // 最近一次读取到的帧，未就绪时继续显示
+
+    // 以下只由预取线程更新
+    private double peakCostNanos = 0;   // 衰减的峰值合成耗时
+    private double averageFrameBytes = 0;
+    private long reportedBytes = 0;     // 已计入共享缓存预算的字节数
+
+    public FramePrefetchRing(FrameCache.AtlasSource atlasSource, PlaybackClock clock) {
+        this.atlasSource = atlasSource;
+        this.clock = clock;
+        worker = new Thread(this::run, "frame-prefetch");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.NORM_PRIORITY - 1);
+        worker.start();
+    }
+
+    /**
+     * 切换帧序列，清空全部槽位
+     */
+    public void setFrames(List<PListParser.FrameInfo> frames) {
+        this.frames = frames;
+        playhead = -1;
+        direction = 1;
+        invalidate();
+    }
+
+    /**
+     * 通知播放位置；反向或跳转距离超过预取深度时作废已预取的帧
+     */
+    public void update(int index) {
+        int previous = playhead;
+        if (index == previous) return;
+        List<PListParser.FrameInfo> list = frames;
+        if (previous >= 0 && list != null && !list.isEmpty()) {
+            int size = list.size();
+            int forward = Math.floorMod(index - previous, size);
+            int backward = Math.floorMod(previous - index, size);
+            int newDirection = forward <= backward ? 1 : -1;
+            if (newDirection != direction || Math.min(forward, backward) > depth) {
+                direction = newDirection;
+                invalidate();
+            }
+        }
+        playhead = index;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * 读取已就绪的帧，未就绪时返回null（不阻塞、不在调用线程合成）
+     */
+    public BufferedImage get(int index) {
+        Slot slot = slots.get(index & MASK);
+        if (slot != null && slot.index == index && slot.generation == generation) {
+            lastImage = slot.image;
+            return slot.image;
+        }
+        return null;
+    }
+
+    /**
+     * 最近一次读取到的帧，播放中遇到未就绪帧时用于保持画面
+     */
+    public BufferedImage getLastImage() {
+        return lastImage;
+    }
+
+    /**
+     * 在调用线程立即合成指定帧（暂停时单步等场景），纹理未就绪时返回null
+     */
+    public BufferedImage composeNow(int index, FrameProfiler profiler) {
+        List<PListParser.FrameInfo> list = frames;
+        if (list == null || index < 0 || index >= list.size()) return null;
+        PListParser.FrameInfo frame = list.get(index);
+        BufferedImage atlas = atlasSource.getAtlas(frame);
+        if (atlas == null) return null;
+        BufferedImage image = FrameCompositor.compose(atlas, frame, profiler);
+        if (image != null) {
+            slots.set(index & MASK, new Slot(index, generation, image));
+            lastImage = image;
+        }
+        return image;
+    }
+
+    /**
+     * 当前预取深度（帧数）
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * 当前代次中已就绪的帧数
+     */
+    public int getReadyCount() {
+        long current = generation;
+        int count = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.generation == current) count++;
+        }
+        return count;
+    }
+
+    public void dispose() {
+        disposed = true;
+        frames = null;
+        invalidate();
+        lastImage = null;
+        LockSupport.unpark(worker);
+    }
+
+    private void invalidate() {
+        generation++;
+        for (int i = 0; i < CAPACITY; i++) {
+            slots.set(i, null);
+        }
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (!disposed) {
+            long gen = generation;
+            List<PListParser.FrameInfo> list = frames;
+            int head = playhead;
+            int dir = direction;
+            if (list == null || list.isEmpty() || head < 0 || head >= list.size()) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+
+            int size = list.size();
+            int window = Math.min(depth, size - 1);
+            releaseOutsideWindow(gen, head, dir, window, size);
+
+            boolean didWork = false;
+            boolean waitingForTexture = false;
+            for (int k = 0; k <= window && gen == generation && head == playhead; k++) {
+                int index = Math.floorMod(head + dir * k, size);
+                Slot slot = slots.get(index & MASK);
+                if (slot != null && slot.index == index && slot.generation == gen) continue;
+
+                PListParser.FrameInfo frame = list.get(index);
+                BufferedImage atlas = atlasSource.getAtlas(frame);
+                if (atlas == null) {
+                    waitingForTexture = true;
+                    break;
+                }
+                long start = System.nanoTime();
+                BufferedImage image;
+                try {
+                    image = FrameCompositor.compose(atlas, frame);
+                } catch (RuntimeException e) {
+                    continue; // 单帧失败跳过，显示时保持上一帧
+                }
+                recordCost(System.nanoTime() - start, image);
+                if (image != null && gen == generation) {
+                    slots.set(index & MASK, new Slot(index, gen, image));
+                    didWork = true;
+                }
+            }
+            if (!didWork && gen == generation && head == playhead) {
+                reportHeldBytes();
+                LockSupport.parkNanos(this, waitingForTexture ? RETRY_NANOS : IDLE_NANOS);
+            }
+        }
+        DecodedImageCache.getInstance().addExternalBytes(-reportedBytes);
+        reportedBytes = 0;
+    }
+
+    // 把槽位当前占用的字节数同步到共享缓存的预算；EDT上单步合成的帧在下一轮计入
+    private void reportHeldBytes() {
+        long bytes = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null) bytes += DecodedImageCache.weigh(slot.image);
+        }
+        if (bytes != reportedBytes) {
+            DecodedImageCache.getInstance().addExternalBytes(bytes - reportedBytes);
+            reportedBytes = bytes;
+        }
+    }
+
+    // 释放不在 [head, head + dir * window] 范围内的槽位，使占用内存跟随深度
+    private void releaseOutsideWindow(long gen, int head, int dir, int window, int size) {
+        for (int i = 0; i < CAPACITY; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null) continue;
+            int distance = Math.floorMod((slot.index - head) * dir, size);
+            if (slot.generation != gen || distance > window) {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+    }
+
+    /**
+     * 根据合成耗时调整深度：峰值耗时相当于几帧，就多预取两倍的帧数来吸收尖峰，同时受内存上限约束
+     */
+    private void recordCost(long costNanos, BufferedImage image) {
+        peakCostNanos = Math.max(costNanos, peakCostNanos * 0.95);
+        if (image != null) {
+            long bytes = (long) image.getWidth() * image.getHeight() * 4;
+            averageFrameBytes = averageFrameBytes == 0 ? bytes : averageFrameBytes * 0.9 + bytes * 0.1;
+        }
+        double frameNanos = clock.getFrameDurationNanos();
+        int wanted = MIN_DEPTH + (int) Math.ceil(2 * peakCostNanos / frameNanos);
+        int memoryLimit = averageFrameBytes > 0 ? (int) Math.min(MAX_DEPTH, MAX_RING_BYTES / averageFrameBytes) : MAX_DEPTH;
+        depth = Math.max(MIN_DEPTH, Math.min(Math.min(MAX_DEPTH, memoryLimit), wanted));
+    }
+}
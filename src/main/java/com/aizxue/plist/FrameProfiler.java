@@ -0,0 +1,286 @@
+package com.aizxue.plist;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 帧耗时分析器
+ * 记录每帧各渲染阶段（切图、旋转、合成、绘制）的耗时以及相对播放时钟的调度抖动，
+ * 写入固定大小的无锁环形缓冲区；可绘制分位数统计与帧耗时曲线，也可导出为CSV。
+ * 只允许一个线程记录（EDT或主动渲染线程），读取可在任意线程进行。
+ */
+public class FrameProfiler {
+
+    /**
+     * 渲染阶段；命中合成帧缓存时切图、旋转、合成耗时为0
+     */
+    public enum Stage {
+        EXTRACT("切图"), ROTATE("旋转"), COMPOSITE("合成"), BLIT("绘制");
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    // 每条记录的字段；SEQ用于读取时校验记录未被覆盖
+    private static final int SEQ = 0;
+    private static final int START = 1;
+    private static final int INTERVAL = 2;
+    private static final int JITTER = 3;
+    private static final int STAGE_BASE = 4;
+    private static final int TOTAL = STAGE_BASE + Stage.values().length;
+    private static final int FIELDS = TOTAL + 1;
+
+    private static final int CAPACITY = 4096; // 2的幂，60fps约可保留68秒
+    private static final int MASK = CAPACITY - 1;
+    private static final long NOT_AVAILABLE = -1L;
+
+    private final AtomicLongArray data = new AtomicLongArray(CAPACITY * FIELDS);
+    private final AtomicLong written = new AtomicLong();
+    private volatile long clearedAt = 0; // 清空时不动缓冲区，只跳过此序号之前的记录
+
+    // 以下为记录线程私有的当前帧累加状态
+    private final long[] stageNanos = new long[Stage.values().length];
+    private long frameStart;
+    private long scheduledNanos;
+    private long lastScheduledStart;
+    private boolean inFrame;
+
+    /**
+     * 记录当前帧按播放时钟应显示的时刻，用于计算调度抖动
+     */
+    public void markScheduled(long nanos) {
+        scheduledNanos = nanos;
+    }
+
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+        Arrays.fill(stageNanos, 0L);
+        inFrame = true;
+    }
+
+    public void addStage(Stage stage, long nanos) {
+        if (inFrame) {
+            stageNanos[stage.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * 结束当前帧并写入环形缓冲区；未经播放时钟调度的帧（暂停时单步）不计抖动与间隔
+     */
+    public void endFrame() {
+        if (!inFrame) return;
+        inFrame = false;
+        long end = System.nanoTime();
+        long jitter = NOT_AVAILABLE;
+        long interval = NOT_AVAILABLE;
+        if (scheduledNanos != 0) {
+            jitter = Math.max(0L, frameStart - scheduledNanos);
+            if (lastScheduledStart != 0) {
+                interval = frameStart - lastScheduledStart;
+            }
+            lastScheduledStart = frameStart;
+            scheduledNanos = 0;
+        } else {
+            lastScheduledStart = 0;
+        }
+
+        long seq = written.get();
+        int base = (int) (seq & MASK) * FIELDS;
+        data.set(base + SEQ, NOT_AVAILABLE); // 标记为正在写入
+        data.set(base + START, frameStart);
+        data.set(base + INTERVAL, interval);
+        data.set(base + JITTER, jitter);
+        for (int i = 0; i < stageNanos.length; i++) {
+            data.set(base + STAGE_BASE + i, stageNanos[i]);
+        }
+        data.set(base + TOTAL, end - frameStart);
+        data.set(base + SEQ, seq);
+        written.set(seq + 1);
+    }
+
+    public void clear() {
+        clearedAt = written.get();
+    }
+
+    /**
+     * 上次清空后记录的帧数（含已被覆盖的）
+     */
+    public long getRecordedCount() {
+        return written.get() - clearedAt;
+    }
+
+    // 按时间顺序复制最近的记录；读取期间被覆盖的记录丢弃
+    private long[][] snapshot(int maxCount) {
+        long end = written.get();
+        long start = Math.max(clearedAt, end - Math.min(CAPACITY, maxCount));
+        long[][] rows = new long[(int) (end - start)][];
+        int count = 0;
+        for (long seq = start; seq < end; seq++) {
+            int base = (int) (seq & MASK) * FIELDS;
+            if (data.get(base + SEQ) != seq) continue;
+            long[] row = new long[FIELDS];
+            for (int i = 1; i < FIELDS; i++) {
+                row[i] = data.get(base + i);
+            }
+            if (data.get(base + SEQ) != seq) continue;
+            row[SEQ] = seq;
+            rows[count++] = row;
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    // 把[start, end)内某一字段的可用值读入out，不复制整条记录；返回个数
+    private int readField(long start, long end, int field, long[] out) {
+        int n = 0;
+        for (long seq = start; seq < end; seq++) {
+            int base = (int) (seq & MASK) * FIELDS;
+            if (data.get(base + SEQ) != seq) continue;
+            long value = data.get(base + field);
+            if (data.get(base + SEQ) != seq || value == NOT_AVAILABLE) continue;
+            out[n++] = value;
+        }
+        return n;
+    }
+
+    /**
+     * 某一字段的p50/p95/p99，写入统计用的缓冲区；没有数据时返回标签加占位符
+     */
+    private String formatPercentiles(String label, long start, long end, int field) {
+        int n = readField(start, end, field, statsScratch);
+        if (n == 0) {
+            return label + ": -";
+        }
+        Arrays.sort(statsScratch, 0, n);
+        return String.format("%s: %.2f / %.2f / %.2f ms", label,
+                statsScratch[(n - 1) * 50 / 100] / 1_000_000.0,
+                statsScratch[(n - 1) * 95 / 100] / 1_000_000.0,
+                statsScratch[(n - 1) * 99 / 100] / 1_000_000.0);
+    }
+
+    /**
+     * 导出全部记录为CSV，时间单位为毫秒
+     */
+    public void writeCsv(File file) throws IOException {
+        long[][] rows = snapshot(CAPACITY);
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            StringBuilder header = new StringBuilder("frame,start_ns,interval_ms,jitter_ms");
+            for (Stage stage : Stage.values()) {
+                header.append(',').append(stage.name().toLowerCase()).append("_ms");
+            }
+            header.append(",total_ms");
+            out.println(header);
+            for (long[] row : rows) {
+                StringBuilder line = new StringBuilder();
+                line.append(row[SEQ]).append(',').append(row[START]);
+                for (int i = INTERVAL; i < FIELDS; i++) {
+                    line.append(',');
+                    if (row[i] != NOT_AVAILABLE) {
+                        line.append(String.format(java.util.Locale.ROOT, "%.3f", row[i] / 1_000_000.0));
+                    }
+                }
+                out.println(line);
+            }
+        }
+    }
+
+    // ---- 叠加层 ----
+
+    private static final int GRAPH_FRAMES = 300;
+    private static final int GRAPH_HEIGHT = 60;
+    private static final int LINE_HEIGHT = 15;
+    private static final int PADDING = 6;
+    private static final int TEXT_LINES = Stage.values().length + 5;
+    public static final Dimension OVERLAY_SIZE = new Dimension(
+            GRAPH_FRAMES + PADDING * 2, TEXT_LINES * LINE_HEIGHT + GRAPH_HEIGHT + PADDING * 3);
+
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final Color BAR_COLOR = new Color(80, 200, 120);
+    private static final Color OVER_BUDGET_COLOR = new Color(230, 80, 60);
+
+    // 分位数排序开销较大，统计文字最多每隔这么久重算一次；曲线每次绘制都更新
+    private static final long STATS_INTERVAL_NANOS = 250_000_000L;
+
+    // 以下仅绘制叠加层的线程访问，缓冲区复用，绘制时不分配数组
+    private final long[] statsScratch = new long[CAPACITY];
+    private final long[] graphTotals = new long[GRAPH_FRAMES];
+    private final String[] statsLines = new String[TEXT_LINES];
+    private long statsComputedAt;
+    private long statsBudgetNanos = -1;
+    private long overlayNanos;
+
+    /**
+     * 在(x, y)处绘制统计与帧耗时曲线；budgetNanos为每帧预算（如60fps为16.7ms），曲线高度为两倍预算
+     */
+    public void paintOverlay(Graphics2D g, int x, int y, long budgetNanos) {
+        long paintStart = System.nanoTime();
+        long end = written.get();
+        long start = Math.max(clearedAt, end - CAPACITY);
+        if (statsBudgetNanos != budgetNanos || paintStart - statsComputedAt >= STATS_INTERVAL_NANOS) {
+            updateStats(start, end, budgetNanos);
+            statsComputedAt = paintStart;
+            statsBudgetNanos = budgetNanos;
+        }
+        Graphics2D g2d = (Graphics2D) g.create();
+        try {
+            g2d.setColor(OVERLAY_BACKGROUND);
+            g2d.fillRect(x, y, OVERLAY_SIZE.width, OVERLAY_SIZE.height);
+
+            int textX = x + PADDING;
+            int baseline = y + PADDING + LINE_HEIGHT - 3;
+            g2d.setColor(Color.WHITE);
+            for (String line : statsLines) {
+                g2d.drawString(line, textX, baseline);
+                baseline += LINE_HEIGHT;
+            }
+
+            // 帧耗时曲线：每帧一列，超出预算标红；读取期间被覆盖的记录留空
+            int graphX = x + PADDING;
+            int graphBottom = y + OVERLAY_SIZE.height - PADDING;
+            long scale = Math.max(1L, budgetNanos * 2);
+            long first = Math.max(start, end - GRAPH_FRAMES);
+            int columns = (int) (end - first);
+            for (int i = 0; i < columns; i++) {
+                long seq = first + i;
+                int base = (int) (seq & MASK) * FIELDS;
+                long total = data.get(base + TOTAL);
+                graphTotals[i] = data.get(base + SEQ) == seq ? total : NOT_AVAILABLE;
+            }
+            for (int i = 0; i < columns; i++) {
+                long total = graphTotals[i];
+                if (total == NOT_AVAILABLE) continue;
+                int h = (int) Math.min(GRAPH_HEIGHT, Math.max(1L, total * GRAPH_HEIGHT / scale));
+                g2d.setColor(total > budgetNanos ? OVER_BUDGET_COLOR : BAR_COLOR);
+                g2d.fillRect(graphX + i, graphBottom - h, 1, h);
+            }
+            int budgetY = graphBottom - GRAPH_HEIGHT / 2;
+            g2d.setColor(Color.YELLOW);
+            g2d.drawLine(graphX, budgetY, graphX + GRAPH_FRAMES, budgetY);
+        } finally {
+            g2d.dispose();
+        }
+        // 叠加层本身的耗时不属于任何帧，单独记下，下次更新统计时显示
+        overlayNanos = System.nanoTime() - paintStart;
+    }
+
+    private void updateStats(long start, long end, long budgetNanos) {
+        int line = 0;
+        statsLines[line++] = String.format("帧耗时 (%d帧, 预算 %.1fms)  p50 / p95 / p99",
+                end - start, budgetNanos / 1_000_000.0);
+        statsLines[line++] = formatPercentiles("总计", start, end, TOTAL);
+        for (Stage stage : Stage.values()) {
+            statsLines[line++] = formatPercentiles(stage.label, start, end, STAGE_BASE + stage.ordinal());
+        }
+        statsLines[line++] = formatPercentiles("抖动", start, end, JITTER);
+        statsLines[line++] = formatPercentiles("间隔", start, end, INTERVAL);
+        statsLines[line] = String.format("叠加层: %.2f ms", overlayNanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,305 @@
+package com.aizxue.plist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 网格同步播放面板
+ * 同时加载多个图集，所有格子由同一个播放时钟驱动，在一次paint中全部绘制；
+ * 帧直接从图集按源矩形缩放绘制，不生成中间图像；多个图集引用同一纹理时只解码一次
+ */
+public class GridPlaybackPanel extends JPanel {
+
+    public static final int MAX_CELLS = 64;
+
+    private static final int GAP = 4;
+    private static final int LABEL_HEIGHT = 16;
+    private static final Color CELL_BACKGROUND = new Color(112, 112, 112);
+
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "grid-loader-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    // 一个格子：图集信息在后台加载，完成前显示加载提示
+    private static class Cell {
+        final String name;
+        final File atlasFile;
+        volatile List<PListParser.FrameInfo> frames;
+        volatile BufferedImage[] pages; // 按atlasIndex索引的纹理页
+        volatile String error;
+        int maxWidth = 1;  // 所有帧的最大画布尺寸，缩放比例据此固定，播放时不抖动
+        int maxHeight = 1;
+
+        Cell(File atlasFile) {
+            this.atlasFile = atlasFile;
+            this.name = atlasFile.getName();
+        }
+    }
+
+    private final PlaybackClock clock;
+    private final PlaybackScheduler scheduler;
+    private volatile List<Cell> cells = Collections.emptyList();
+    // 纹理规范路径 -> 纹理租约，所有格子共享；换一批图集或关闭网格时释放
+    private final Map<String, CompletableFuture<TextureRegistry.Lease>> textures = new ConcurrentHashMap<>();
+    private volatile long currentFrame = 0;
+    private volatile int generation = 0; // 每次load递增（只在EDT），加载线程据此丢弃过期的加载结果
+
+    public GridPlaybackPanel(double fps) {
+        clock = new PlaybackClock(fps);
+        scheduler = new PlaybackScheduler(clock, frameNumber -> {
+            currentFrame = frameNumber;
+            repaint();
+        });
+        setBackground(new Color(128, 128, 128));
+    }
+
+    /**
+     * 加载一组图集（最多MAX_CELLS个），各图集在后台并发解析与解码
+     */
+    public void load(List<File> atlasFiles) {
+        final int loadGeneration = ++generation;
+        releaseTextures();
+        List<Cell> newCells = new ArrayList<>();
+        for (File file : atlasFiles) {
+            if (newCells.size() >= MAX_CELLS) break;
+            newCells.add(new Cell(file));
+        }
+        cells = Collections.unmodifiableList(newCells);
+        currentFrame = 0;
+        if (clock.isRunning()) {
+            clock.start(0);
+        }
+        for (final Cell cell : newCells) {
+            LOADER.submit(() -> loadCell(cell, loadGeneration));
+        }
+        repaint();
+    }
+
+    private void loadCell(Cell cell, int loadGeneration) {
+        try {
+            PListParser.TextureAtlasInfo info;
+            File[] textureFiles;
+            MultipackAtlas multipack = MultipackAtlas.detect(cell.atlasFile);
+            if (multipack != null) {
+                info = multipack.atlasInfo;
+                textureFiles = new File[multipack.pages.getPageCount()];
+                for (int i = 0; i < textureFiles.length; i++) {
+                    textureFiles[i] = multipack.pages.getTextureFile(i);
+                }
+            } else {
+                info = AtlasCache.getInstance().get(cell.atlasFile);
+                textureFiles = new File[] { TextureFiles.find(cell.atlasFile, info) };
+            }
+
+            List<PListParser.FrameInfo> frames = info.getFramesInOrder();
+            for (PListParser.FrameInfo frame : frames) {
+                Dimension size = FrameCompositor.canvasSize(frame);
+                cell.maxWidth = Math.max(cell.maxWidth, size.width);
+                cell.maxHeight = Math.max(cell.maxHeight, size.height);
+            }
+
+            final CompletableFuture<?>[] pending = new CompletableFuture<?>[textureFiles.length];
+            for (int i = 0; i < textureFiles.length; i++) {
+                if (textureFiles[i] == null) {
+                    throw new IOException("找不到纹理文件");
+                }
+                // 已换批或已关闭，不再取租约
+                if (loadGeneration != generation) return;
+                pending[i] = texture(textureFiles[i], loadGeneration);
+            }
+            CompletableFuture.allOf(pending).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    cell.error = "纹理加载失败";
+                } else {
+                    BufferedImage[] pages = new BufferedImage[pending.length];
+                    for (int i = 0; i < pending.length; i++) {
+                        pages[i] = ((TextureRegistry.Lease) pending[i].join()).image;
+                    }
+                    cell.pages = pages;
+                    cell.frames = frames;
+                }
+                repaintIfCurrent(loadGeneration);
+            });
+        } catch (Exception e) {
+            cell.error = "加载失败";
+            repaintIfCurrent(loadGeneration);
+        }
+    }
+
+    // 同一纹理文件只解码一次，供所有引用它的格子共享
+    private CompletableFuture<TextureRegistry.Lease> texture(File file, int loadGeneration) throws IOException {
+        String key = file.getCanonicalPath();
+        CompletableFuture<TextureRegistry.Lease> future =
+                textures.computeIfAbsent(key, k -> TextureRegistry.getInstance().acquireAsync(file, LOADER));
+        // 放入期间load或dispose已释放全部租约：仍在表中的由这里收回，已被取走的已由releaseTextures释放
+        if (loadGeneration != generation && textures.remove(key, future)) {
+            future.thenAccept(TextureRegistry.Lease::release);
+        }
+        return future;
+    }
+
+    // 逐个移除再释放，不会漏掉并发加入的；仍在解码的纹理在完成后释放
+    private void releaseTextures() {
+        for (Iterator<CompletableFuture<TextureRegistry.Lease>> it = textures.values().iterator(); it.hasNext(); ) {
+            CompletableFuture<TextureRegistry.Lease> future = it.next();
+            it.remove();
+            future.thenAccept(TextureRegistry.Lease::release);
+        }
+    }
+
+    private void repaintIfCurrent(int loadGeneration) {
+        SwingUtilities.invokeLater(() -> {
+            if (loadGeneration == generation) {
+                repaint();
+            }
+        });
+    }
+
+    public void start() {
+        clock.start(currentFrame);
+        scheduler.start();
+    }
+
+    public void stop() {
+        scheduler.stop();
+        clock.stop();
+    }
+
+    public boolean isPlaying() {
+        return scheduler.isRunning();
+    }
+
+    public void setFps(double fps) {
+        clock.setFps(fps);
+    }
+
+    /**
+     * 回到第一帧
+     */
+    public void rewind() {
+        currentFrame = 0;
+        if (clock.isRunning()) {
+            clock.start(0);
+        }
+        repaint();
+    }
+
+    /**
+     * 单步前进或后退
+     */
+    public void step(int delta) {
+        currentFrame += delta;
+        // 播放中单步时从新位置继续计时
+        if (clock.isRunning()) {
+            clock.start(currentFrame);
+        }
+        repaint();
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    /**
+     * 当前解码的不同纹理数量（共享纹理只计一次）
+     */
+    public int getTextureCount() {
+        return textures.size();
+    }
+
+    /**
+     * 停止播放并释放所有图集与纹理
+     */
+    public void dispose() {
+        stop();
+        generation++;
+        cells = Collections.emptyList();
+        releaseTextures();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        List<Cell> snapshot = cells;
+        int count = snapshot.size();
+        if (count == 0) {
+            g.setColor(Color.WHITE);
+            g.drawString("没有可播放的动画", 20, 30);
+            return;
+        }
+
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (count + columns - 1) / columns;
+        int cellWidth = (getWidth() - GAP * (columns + 1)) / columns;
+        int cellHeight = (getHeight() - GAP * (rows + 1)) / rows;
+        if (cellWidth <= 0 || cellHeight <= LABEL_HEIGHT) return;
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        Shape originalClip = g2d.getClip();
+        AffineTransform originalTransform = g2d.getTransform();
+        long frameNumber = currentFrame;
+
+        for (int i = 0; i < count; i++) {
+            int x = GAP + (i % columns) * (cellWidth + GAP);
+            int y = GAP + (i / columns) * (cellHeight + GAP);
+            if (!g2d.hitClip(x, y, cellWidth, cellHeight)) continue;
+            Cell cell = snapshot.get(i);
+            int areaHeight = cellHeight - LABEL_HEIGHT;
+
+            g2d.setColor(CELL_BACKGROUND);
+            g2d.fillRect(x, y, cellWidth, areaHeight);
+
+            List<PListParser.FrameInfo> frames = cell.frames;
+            BufferedImage[] pages = cell.pages;
+            if (frames != null && !frames.isEmpty() && pages != null) {
+                PListParser.FrameInfo frame = frames.get((int) Math.floorMod(frameNumber, (long) frames.size()));
+                BufferedImage atlas = frame.atlasIndex < pages.length ? pages[frame.atlasIndex] : null;
+                if (atlas != null) {
+                    // 按最大帧尺寸等比缩小到格子内（不放大），帧画布居中
+                    double scale = Math.min(1.0, Math.min((double) cellWidth / cell.maxWidth, (double) areaHeight / cell.maxHeight));
+                    Dimension size = FrameCompositor.canvasSize(frame);
+                    g2d.clipRect(x, y, cellWidth, areaHeight);
+                    g2d.translate(x + cellWidth / 2.0, y + areaHeight / 2.0);
+                    g2d.scale(scale, scale);
+                    FrameCompositor.drawDirect(g2d, atlas, frame, -size.width / 2, -size.height / 2);
+                    g2d.setTransform(originalTransform);
+                    g2d.setClip(originalClip);
+                }
+            } else {
+                g2d.setColor(Color.WHITE);
+                g2d.drawString(cell.error != null ? cell.error : "加载中...", x + 6, y + 18);
+            }
+
+            // 格子下方的文件名
+            g2d.setColor(Color.WHITE);
+            g2d.clipRect(x, y + areaHeight, cellWidth, LABEL_HEIGHT);
+            g2d.drawString(cell.name, x + 2, y + cellHeight - 4);
+            g2d.setClip(originalClip);
+        }
+        g2d.dispose();
+    }
+}
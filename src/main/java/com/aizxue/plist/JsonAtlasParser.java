@@ -0,0 +1,397 @@
+package com.aizxue.plist;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TexturePacker JSON图集解析器，支持 JSON (Hash) 与 JSON (Array) 两种导出格式
+ * 采用流式读取，边读边填充TextureAtlasInfo，不构建完整的JSON树
+ */
+public class JsonAtlasParser {
+
+    public static PListParser.TextureAtlasInfo parseJson(File jsonFile) throws IOException {
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(jsonFile), StandardCharsets.UTF_8), 64 * 1024)) {
+            return parseJson(reader);
+        }
+    }
+
+    public static PListParser.TextureAtlasInfo parseJson(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        PListParser.TextureAtlasInfo atlasInfo = new PListParser.TextureAtlasInfo();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            switch (key) {
+                case "frames":
+                    if (in.peek() == '[') {
+                        parseFramesArray(in, atlasInfo);
+                    } else {
+                        parseFramesHash(in, atlasInfo);
+                    }
+                    break;
+                case "meta":
+                    parseMeta(in, atlasInfo);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        atlasInfo.indexSequences();
+        return atlasInfo;
+    }
+
+    /**
+     * 粗略判断文件是否为TexturePacker JSON图集：只读取文件头部查找 "frames" 键
+     */
+    public static boolean looksLikeAtlas(File file) {
+        char[] head = new char[4096];
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            int n = reader.read(head);
+            if (n <= 0) return false;
+            String text = new String(head, 0, n);
+            return text.trim().startsWith("{") && text.contains("\"frames\"");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // JSON (Hash)："frames": { "name": {...}, ... }
+    private static void parseFramesHash(JsonReader in, PListParser.TextureAtlasInfo atlasInfo) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            FrameBuilder builder = new FrameBuilder();
+            builder.name = name;
+            parseFrameObject(in, builder);
+            atlasInfo.frames.put(name, builder.build());
+        }
+        in.endObject();
+    }
+
+    // JSON (Array)："frames": [ { "filename": "name", ... }, ... ]
+    private static void parseFramesArray(JsonReader in, PListParser.TextureAtlasInfo atlasInfo) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            FrameBuilder builder = new FrameBuilder();
+            parseFrameObject(in, builder);
+            if (builder.name == null) {
+                builder.name = String.valueOf(atlasInfo.frames.size());
+            }
+            atlasInfo.frames.put(builder.name, builder.build());
+        }
+        in.endArray();
+    }
+
+    private static void parseFrameObject(JsonReader in, FrameBuilder builder) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            switch (key) {
+                case "filename":
+                    builder.name = in.nextString();
+                    break;
+                case "frame":
+                    builder.frame = readRect(in);
+                    break;
+                case "rotated":
+                    builder.rotated = in.nextBoolean();
+                    break;
+                case "spriteSourceSize":
+                    builder.spriteSourceSize = readRect(in);
+                    break;
+                case "sourceSize":
+                    builder.sourceSize = readSize(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+    }
+
+    private static void parseMeta(JsonReader in, PListParser.TextureAtlasInfo atlasInfo) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            switch (key) {
+                case "image":
+                    atlasInfo.textureFileName = in.nextString();
+                    break;
+                case "format":
+                    atlasInfo.pixelFormat = in.nextString();
+                    break;
+                case "size":
+                    atlasInfo.textureSize = readSize(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+    }
+
+    // 读取 {"x":..,"y":..,"w":..,"h":..}
+    private static Rectangle readRect(JsonReader in) throws IOException {
+        Rectangle rect = new Rectangle();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            switch (key) {
+                case "x": rect.x = in.nextInt(); break;
+                case "y": rect.y = in.nextInt(); break;
+                case "w": rect.width = in.nextInt(); break;
+                case "h": rect.height = in.nextInt(); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return rect;
+    }
+
+    // 读取 {"w":..,"h":..}
+    private static Dimension readSize(JsonReader in) throws IOException {
+        Dimension size = new Dimension();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            switch (key) {
+                case "w": size.width = in.nextInt(); break;
+                case "h": size.height = in.nextInt(); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return size;
+    }
+
+    /**
+     * 帧字段暂存：数组格式中filename可能出现在其他字段之后，读完整个对象后再生成FrameInfo
+     */
+    private static class FrameBuilder {
+        String name;
+        Rectangle frame;
+        boolean rotated;
+        Rectangle spriteSourceSize;
+        Dimension sourceSize;
+
+        PListParser.FrameInfo build() {
+            Point offset = null;
+            if (spriteSourceSize != null && sourceSize != null) {
+                // 与plist保持一致：offset为裁剪区域中心相对原图中心的偏移（y轴向上）
+                int cx = spriteSourceSize.x + spriteSourceSize.width / 2 - sourceSize.width / 2;
+                int cy = sourceSize.height / 2 - (spriteSourceSize.y + spriteSourceSize.height / 2);
+                offset = new Point(cx, cy);
+            }
+            return new PListParser.FrameInfo(name, frame, offset, rotated, spriteSourceSize, sourceSize, 0);
+        }
+    }
+
+    /**
+     * 极简的拉取式JSON词法读取器，只实现图集解析所需的操作
+     */
+    private static class JsonReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int pos = 0;
+        private int limit = 0;
+        private final StringBuilder sb = new StringBuilder();
+        // 当前容器中是否需要在下一个元素前消费逗号
+        private boolean expectComma = false;
+
+        JsonReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private boolean fill() throws IOException {
+            limit = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            return limit > 0;
+        }
+
+        private int peekChar() throws IOException {
+            while (true) {
+                if (pos >= limit && !fill()) {
+                    return -1;
+                }
+                char c = buffer[pos];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    pos++;
+                } else if (pos == 0 && c == '\uFEFF') {
+                    pos++; // 跳过BOM
+                } else {
+                    return c;
+                }
+            }
+        }
+
+        private char readChar() throws IOException {
+            int c = peekChar();
+            if (c < 0) throw new EOFException("JSON意外结束");
+            pos++;
+            return (char) c;
+        }
+
+        private char readRawChar() throws IOException {
+            if (pos >= limit && !fill()) throw new EOFException("JSON意外结束");
+            return buffer[pos++];
+        }
+
+        private void expect(char expected) throws IOException {
+            char c = readChar();
+            if (c != expected) {
+                throw new IOException("JSON格式错误: 期望 '" + expected + "' 实际为 '" + c + "'");
+            }
+        }
+
+        private void consumeSeparator() throws IOException {
+            if (expectComma) {
+                if (peekChar() == ',') {
+                    pos++;
+                }
+            }
+            expectComma = false;
+        }
+
+        /** 返回下一个值的首字符（不消费） */
+        int peek() throws IOException {
+            consumeSeparator();
+            return peekChar();
+        }
+
+        void beginObject() throws IOException {
+            consumeSeparator();
+            expect('{');
+        }
+
+        void endObject() throws IOException {
+            expect('}');
+            expectComma = true;
+        }
+
+        void beginArray() throws IOException {
+            consumeSeparator();
+            expect('[');
+        }
+
+        void endArray() throws IOException {
+            expect(']');
+            expectComma = true;
+        }
+
+        boolean hasNext() throws IOException {
+            int c = peek();
+            return c != '}' && c != ']' && c >= 0;
+        }
+
+        String nextName() throws IOException {
+            consumeSeparator();
+            expect('"');
+            String name = readStringBody();
+            expect(':');
+            return name;
+        }
+
+        String nextString() throws IOException {
+            consumeSeparator();
+            int c = peekChar();
+            String value;
+            if (c == '"') {
+                pos++;
+                value = readStringBody();
+            } else {
+                value = readLiteral();
+            }
+            expectComma = true;
+            return value;
+        }
+
+        int nextInt() throws IOException {
+            String literal = nextString();
+            try {
+                return (int) Math.round(Double.parseDouble(literal));
+            } catch (NumberFormatException e) {
+                throw new IOException("JSON数字格式错误: " + literal);
+            }
+        }
+
+        boolean nextBoolean() throws IOException {
+            return "true".equals(nextString());
+        }
+
+        void skipValue() throws IOException {
+            consumeSeparator();
+            int c = peekChar();
+            if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    char ch = readRawChar();
+                    if (ch == '"') {
+                        readStringBody();
+                    } else if (ch == '{' || ch == '[') {
+                        depth++;
+                    } else if (ch == '}' || ch == ']') {
+                        depth--;
+                    }
+                } while (depth > 0);
+            } else if (c == '"') {
+                pos++;
+                readStringBody();
+            } else {
+                readLiteral();
+            }
+            expectComma = true;
+        }
+
+        // 读取数字、true/false/null等非字符串字面量
+        private String readLiteral() throws IOException {
+            sb.setLength(0);
+            while (true) {
+                if (pos >= limit && !fill()) break;
+                char c = buffer[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    break;
+                }
+                sb.append(c);
+                pos++;
+            }
+            return sb.toString();
+        }
+
+        // 读取引号内的字符串内容（起始引号已消费）
+        private String readStringBody() throws IOException {
+            sb.setLength(0);
+            while (true) {
+                char c = readRawChar();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    char esc = readRawChar();
+                    switch (esc) {
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u':
+                            char[] hex = {readRawChar(), readRawChar(), readRawChar(), readRawChar()};
+                            sb.append((char) Integer.parseInt(new String(hex), 16));
+                            break;
+                        default: sb.append(esc); break;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.aizxue.plist;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 每个根文件夹一份的持久化目录清单
+ * 按目录记录子目录与图集文件，每个图集记录修改时间、大小、帧数、纹理文件及其格式与尺寸、动画序列名。
+ * 再次打开同一文件夹时先按清单立即建出树与缩略图列表，再在后台重新扫描校验，差异增量应用。
+ * 缩略图仍按plist路径存放在ThumbnailStore中，清单不重复保存像素。
+ */
+public class LibraryCatalog {
+
+    private static final int MAGIC = 0x4C434154; // "LCAT"
+    private static final int VERSION = 1;
+    private static final String CATALOG_DIR_NAME = "catalogs";
+
+    /**
+     * 一个图集文件的清单条目
+     */
+    public static final class AtlasEntry {
+        public final Path path;
+        public final long lastModified;
+        public final long length;
+        public final int frameCount;
+        public final String textureName;       // 与图集同目录的纹理文件名，找不到纹理时为null
+        public final long textureLastModified;
+        public final String textureFormat;     // metadata中的像素格式，未声明时为纹理扩展名
+        public final int textureWidth;         // 未知时为-1
+        public final int textureHeight;
+        public final List<String> sequenceNames;
+
+        AtlasEntry(Path path, long lastModified, long length, int frameCount, String textureName,
+                   long textureLastModified, String textureFormat, int textureWidth, int textureHeight,
+                   List<String> sequenceNames) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.frameCount = frameCount;
+            this.textureName = textureName;
+            this.textureLastModified = textureLastModified;
+            this.textureFormat = textureFormat;
+            this.textureWidth = textureWidth;
+            this.textureHeight = textureHeight;
+            this.sequenceNames = sequenceNames;
+        }
+
+        Path texturePath() {
+            return textureName != null ? path.resolveSibling(textureName) : null;
+        }
+    }
+
+    private static final class DirectoryEntry {
+        final Path directory;
+        final List<Path> subdirectories;
+        final List<AtlasEntry> atlases;
+
+        DirectoryEntry(Path directory, List<Path> subdirectories, List<AtlasEntry> atlases) {
+            this.directory = directory;
+            this.subdirectories = subdirectories;
+            this.atlases = atlases;
+        }
+    }
+
+    private final Path root;
+    // 父目录总在子目录之前
+    private final List<DirectoryEntry> directories;
+    private final Map<Path, AtlasEntry> atlasesByPath = new HashMap<>();
+
+    private LibraryCatalog(Path root, List<DirectoryEntry> directories) {
+        this.root = root;
+        this.directories = directories;
+        for (DirectoryEntry directory : directories) {
+            for (AtlasEntry atlas : directory.atlases) {
+                atlasesByPath.put(atlas.path, atlas);
+            }
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public int getDirectoryCount() {
+        return directories.size();
+    }
+
+    public int getAtlasCount() {
+        return atlasesByPath.size();
+    }
+
+    public AtlasEntry getAtlas(Path path) {
+        return atlasesByPath.get(path);
+    }
+
+    public java.util.Collection<AtlasEntry> getAtlases() {
+        return Collections.unmodifiableCollection(atlasesByPath.values());
+    }
+
+    /**
+     * 转换为扫描结果的形式，与扫描共用建树代码
+     */
+    public List<FolderScanner.Listing> toListings() {
+        List<FolderScanner.Listing> listings = new ArrayList<>(directories.size());
+        for (DirectoryEntry directory : directories) {
+            List<Path> atlasFiles = new ArrayList<>(directory.atlases.size());
+            for (AtlasEntry atlas : directory.atlases) {
+                atlasFiles.add(atlas.path);
+            }
+            listings.add(new FolderScanner.Listing(directory.directory, directory.subdirectories, atlasFiles,
+                    Collections.<Path, BasicFileAttributes>emptyMap()));
+        }
+        return listings;
+    }
+
+    /**
+     * 与重新扫描的结果比较，得到需要应用到树上的变化：
+     * 新增的目录与图集、修改过的图集与纹理按“仍存在”，消失的按“已删除”
+     */
+    public FolderWatcher.ChangeSet diff(List<FolderScanner.Listing> scanned) {
+        Map<Path, Boolean> present = new LinkedHashMap<>();
+        Set<Path> removed = new LinkedHashSet<>();
+        // 目录集合包含被列为子目录但未展开的目录（如指回上级的符号链接）
+        Set<Path> knownDirectories = new LinkedHashSet<>();
+        for (DirectoryEntry directory : directories) {
+            knownDirectories.add(directory.directory);
+            knownDirectories.addAll(directory.subdirectories);
+        }
+        Set<Path> scannedDirectories = new HashSet<>();
+        Set<Path> scannedAtlases = new HashSet<>();
+        scannedDirectories.add(root);
+        for (FolderScanner.Listing listing : scanned) {
+            scannedDirectories.add(listing.directory);
+            for (Path subdirectory : listing.subdirectories) {
+                scannedDirectories.add(subdirectory);
+                if (!knownDirectories.contains(subdirectory)) {
+                    present.put(subdirectory, Boolean.TRUE);
+                }
+            }
+            for (Path atlasFile : listing.atlasFiles) {
+                scannedAtlases.add(atlasFile);
+                AtlasEntry entry = atlasesByPath.get(atlasFile);
+                BasicFileAttributes attrs = listing.atlasAttributes.get(atlasFile);
+                if (entry == null || attrs == null || entry.lastModified != attrs.lastModifiedTime().toMillis()
+                        || entry.length != attrs.size()) {
+                    present.put(atlasFile, Boolean.FALSE);
+                }
+            }
+        }
+        for (Path directory : knownDirectories) {
+            if (!scannedDirectories.contains(directory)) {
+                removed.add(directory);
+            }
+        }
+        Set<Path> checkedTextures = new HashSet<>();
+        for (AtlasEntry atlas : atlasesByPath.values()) {
+            if (!scannedAtlases.contains(atlas.path)) {
+                removed.add(atlas.path);
+                continue;
+            }
+            // 纹理变化不改变plist本身，单独比较纹理的修改时间
+            Path texture = atlas.texturePath();
+            if (texture == null || !checkedTextures.add(texture)) continue;
+            long lastModified = texture.toFile().lastModified();
+            if (lastModified == 0L) {
+                removed.add(texture);
+            } else if (lastModified != atlas.textureLastModified) {
+                present.put(texture, Boolean.FALSE);
+            }
+        }
+        return new FolderWatcher.ChangeSet(present, removed, Collections.<Path>emptySet());
+    }
+
+    /**
+     * 由扫描结果建立清单；未变化的图集沿用旧清单中的条目，其余通过AtlasCache解析（并行）
+     */
+    public static LibraryCatalog build(Path root, List<FolderScanner.Listing> listings, LibraryCatalog previous) {
+        List<Path> atlasFiles = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (FolderScanner.Listing listing : listings) {
+            atlasFiles.addAll(listing.atlasFiles);
+            attributes.putAll(listing.atlasAttributes);
+        }
+        Map<Path, AtlasEntry> built = atlasFiles.parallelStream()
+                .map(path -> describe(path, attributes.get(path), previous != null ? previous.getAtlas(path) : null))
+                .collect(Collectors.toMap(entry -> entry.path, entry -> entry));
+
+        List<DirectoryEntry> directories = new ArrayList<>(listings.size());
+        for (FolderScanner.Listing listing : listings) {
+            List<AtlasEntry> atlases = new ArrayList<>(listing.atlasFiles.size());
+            for (Path atlasFile : listing.atlasFiles) {
+                atlases.add(built.get(atlasFile));
+            }
+            directories.add(new DirectoryEntry(listing.directory, listing.subdirectories, atlases));
+        }
+        return new LibraryCatalog(root, directories);
+    }
+
+    private static AtlasEntry describe(Path path, BasicFileAttributes attrs, AtlasEntry previous) {
+        File file = path.toFile();
+        long lastModified = attrs != null ? attrs.lastModifiedTime().toMillis() : file.lastModified();
+        long length = attrs != null ? attrs.size() : file.length();
+        if (previous != null && previous.lastModified == lastModified && previous.length == length) {
+            Path texture = previous.texturePath();
+            if (texture == null || texture.toFile().lastModified() == previous.textureLastModified) {
+                return previous;
+            }
+        }
+        try {
+            PListParser.TextureAtlasInfo info = AtlasCache.getInstance().get(file);
+            File texture = TextureFiles.find(file, info);
+            String format = info.pixelFormat;
+            if ((format == null || format.isEmpty()) && texture != null) {
+                String name = texture.getName();
+                format = name.substring(name.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT);
+            }
+            return new AtlasEntry(path, lastModified, length, info.frames.size(),
+                    texture != null ? texture.getName() : null, texture != null ? texture.lastModified() : 0L,
+                    format, info.textureSize != null ? info.textureSize.width : -1,
+                    info.textureSize != null ? info.textureSize.height : -1,
+                    new ArrayList<>(info.getSequences().keySet()));
+        } catch (Exception e) {
+            // 解析失败的图集仍然列出，详细信息留空
+            return new AtlasEntry(path, lastModified, length, 0, null, 0L, null, -1, -1,
+                    Collections.<String>emptyList());
+        }
+    }
+
+    // ---- 持久化 ----
+
+    /**
+     * 读取根文件夹的清单；不存在、版本不符或已损坏时返回null
+     */
+    public static LibraryCatalog load(Path root) {
+        File file = catalogFile(root);
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(root.toString())) {
+                return null;
+            }
+            int directoryCount = in.readInt();
+            List<DirectoryEntry> directories = new ArrayList<>(directoryCount);
+            for (int i = 0; i < directoryCount; i++) {
+                String relative = in.readUTF();
+                Path directory = relative.isEmpty() ? root : root.resolve(relative);
+                int subdirectoryCount = in.readInt();
+                List<Path> subdirectories = new ArrayList<>(subdirectoryCount);
+                for (int j = 0; j < subdirectoryCount; j++) {
+                    subdirectories.add(directory.resolve(in.readUTF()));
+                }
+                int atlasCount = in.readInt();
+                List<AtlasEntry> atlases = new ArrayList<>(atlasCount);
+                for (int j = 0; j < atlasCount; j++) {
+                    atlases.add(readAtlas(in, directory));
+                }
+                directories.add(new DirectoryEntry(directory, subdirectories, atlases));
+            }
+            return new LibraryCatalog(root, directories);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("目录清单读取失败，将重新扫描: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入清单（先写临时文件再替换）
+     */
+    public void save() {
+        File file = catalogFile(root);
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root.toString());
+            out.writeInt(directories.size());
+            for (DirectoryEntry directory : directories) {
+                // 路径相对根目录保存，子目录与图集只保存文件名
+                out.writeUTF(directory.directory.equals(root) ? "" : root.relativize(directory.directory).toString());
+                out.writeInt(directory.subdirectories.size());
+                for (Path subdirectory : directory.subdirectories) {
+                    out.writeUTF(subdirectory.getFileName().toString());
+                }
+                out.writeInt(directory.atlases.size());
+                for (AtlasEntry atlas : directory.atlases) {
+                    writeAtlas(out, atlas);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("目录清单写入失败: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (file.exists() && !file.delete()) {
+            tmp.delete();
+            return;
+        }
+        tmp.renameTo(file);
+    }
+
+    private static void writeAtlas(DataOutputStream out, AtlasEntry atlas) throws IOException {
+        out.writeUTF(atlas.path.getFileName().toString());
+        out.writeLong(atlas.lastModified);
+        out.writeLong(atlas.length);
+        out.writeInt(atlas.frameCount);
+        writeString(out, atlas.textureName);
+        out.writeLong(atlas.textureLastModified);
+        writeString(out, atlas.textureFormat);
+        out.writeInt(atlas.textureWidth);
+        out.writeInt(atlas.textureHeight);
+        out.writeShort(atlas.sequenceNames.size());
+        for (String name : atlas.sequenceNames) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static AtlasEntry readAtlas(DataInputStream in, Path directory) throws IOException {
+        Path path = directory.resolve(in.readUTF());
+        long lastModified = in.readLong();
+        long length = in.readLong();
+        int frameCount = in.readInt();
+        String textureName = readString(in);
+        long textureLastModified = in.readLong();
+        String textureFormat = readString(in);
+        int textureWidth = in.readInt();
+        int textureHeight = in.readInt();
+        int sequenceCount = in.readUnsignedShort();
+        List<String> sequenceNames = new ArrayList<>(sequenceCount);
+        for (int i = 0; i < sequenceCount; i++) {
+            sequenceNames.add(in.readUTF());
+        }
+        return new AtlasEntry(path, lastModified, length, frameCount, textureName, textureLastModified,
+                textureFormat, textureWidth, textureHeight, sequenceNames);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // 每个根文件夹一个文件，文件名取路径的散列，并以文件夹名开头便于辨认
+    private static File catalogFile(Path root) {
+        String hash = UUID.nameUUIDFromBytes(root.toString().getBytes(StandardCharsets.UTF_8)).toString();
+        Path name = root.getFileName();
+        String prefix = name != null ? name.toString().replaceAll("[^\\w.-]", "_") + "-" : "";
+        return new File(new File(Const.APP_CACHE_DIR, CATALOG_DIR_NAME), prefix + hash + ".cat");
+    }
+}
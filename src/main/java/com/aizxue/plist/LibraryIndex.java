@@ -0,0 +1,192 @@
+package com.aizxue.plist;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 文件夹内图集的内存搜索索引
+ * 每个图集的可搜索文本由名称、相对目录、动画序列名、纹理格式与尺寸组成（统一小写）；
+ * 按三字符片段（trigram）建立倒排表，查询时先求各片段倒排表的交集，再逐个确认包含关系。
+ * 不足三个字符的关键字直接在候选集合中逐个匹配。
+ * 查询是上一次查询的延续（继续输入）时只在上一次的结果中细化。
+ * 索引建立后不再修改，可在后台线程建立；search只在EDT调用。
+ */
+public class LibraryIndex {
+
+    public static final LibraryIndex EMPTY = new LibraryIndex(new String[0], new String[0]);
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final String[] paths;
+    private final String[] texts;
+    private final Map<Long, int[]> postings = new HashMap<>();
+
+    // 上一次查询，用于继续输入时细化
+    private String lastQuery = "";
+    private int[] lastResult;
+
+    private LibraryIndex(String[] paths, String[] texts) {
+        this.paths = paths;
+        this.texts = texts;
+        Map<Long, IntList> lists = new HashMap<>();
+        for (int id = 0; id < texts.length; id++) {
+            long[] keys = trigrams(texts[id]);
+            Arrays.sort(keys);
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0 && keys[i] == keys[i - 1]) continue;
+                IntList list = lists.get(keys[i]);
+                if (list == null) {
+                    list = new IntList();
+                    lists.put(keys[i], list);
+                }
+                list.add(id);
+            }
+        }
+        for (Map.Entry<Long, IntList> e : lists.entrySet()) {
+            postings.put(e.getKey(), e.getValue().toArray());
+        }
+    }
+
+    /**
+     * 建立索引；catalog可为null，此时只索引名称与目录
+     */
+    public static LibraryIndex build(Path root, List<String> atlasPaths, List<String> names, LibraryCatalog catalog) {
+        String[] paths = atlasPaths.toArray(new String[0]);
+        String[] texts = new String[paths.length];
+        StringBuilder sb = new StringBuilder(128);
+        for (int i = 0; i < paths.length; i++) {
+            Path path = Paths.get(paths[i]);
+            sb.setLength(0);
+            sb.append(names.get(i));
+            Path parent = path.getParent();
+            if (root != null && parent != null && parent.startsWith(root)) {
+                sb.append('\n').append(root.relativize(parent).toString().replace('\\', '/'));
+            }
+            LibraryCatalog.AtlasEntry entry = catalog != null ? catalog.getAtlas(path) : null;
+            if (entry != null) {
+                for (String sequence : entry.sequenceNames) {
+                    sb.append('\n').append(sequence);
+                }
+                if (entry.textureFormat != null) {
+                    sb.append('\n').append(entry.textureFormat);
+                }
+                if (entry.textureName != null) {
+                    sb.append('\n').append(entry.textureName);
+                }
+                if (entry.textureWidth > 0 && entry.textureHeight > 0) {
+                    sb.append('\n').append(entry.textureWidth).append('x').append(entry.textureHeight);
+                }
+            }
+            texts[i] = sb.toString().toLowerCase(Locale.ROOT);
+        }
+        return new LibraryIndex(paths, texts);
+    }
+
+    public int size() {
+        return paths.length;
+    }
+
+    public String getPath(int id) {
+        return paths[id];
+    }
+
+    /**
+     * 查询：空格分隔的关键字需全部出现（不区分大小写的子串匹配），返回按建立顺序排列的序号
+     */
+    public int[] search(String query) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            lastQuery = "";
+            lastResult = null;
+            return NO_MATCHES;
+        }
+        // 继续输入时结果只会变少，在上一次结果中细化即可
+        int[] candidates = !lastQuery.isEmpty() && lastResult != null && normalized.startsWith(lastQuery)
+                ? lastResult : null;
+        for (String term : normalized.split("\\s+")) {
+            candidates = filter(candidates, term);
+            if (candidates.length == 0) break;
+        }
+        lastQuery = normalized;
+        lastResult = candidates;
+        return candidates;
+    }
+
+    // candidates为null表示全部
+    private int[] filter(int[] candidates, String term) {
+        if (term.length() >= 3) {
+            int[] shortest = null;
+            long[] keys = trigrams(term);
+            for (long key : keys) {
+                int[] list = postings.get(key);
+                if (list == null) return NO_MATCHES;
+                if (shortest == null || list.length < shortest.length) shortest = list;
+            }
+            // 候选集合比最短的倒排表还小时直接逐个确认，否则先求倒排表交集
+            if (candidates == null || candidates.length > shortest.length) {
+                int[] intersection = shortest;
+                for (long key : keys) {
+                    int[] list = postings.get(key);
+                    if (list != shortest) intersection = intersect(intersection, list);
+                }
+                candidates = candidates == null ? intersection : intersect(intersection, candidates);
+            }
+        }
+        IntList matches = new IntList();
+        if (candidates == null) {
+            for (int id = 0; id < texts.length; id++) {
+                if (texts[id].contains(term)) matches.add(id);
+            }
+        } else {
+            for (int id : candidates) {
+                if (texts[id].contains(term)) matches.add(id);
+            }
+        }
+        return matches.toArray();
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] trigrams(String text) {
+        int count = Math.max(0, text.length() - 2);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return keys;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.aizxue.plist;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * TexturePacker multipack导出的逻辑动画：attack-0.plist/attack-0.dds、attack-1.plist ...
+ * 合并所有分页的帧信息，每帧通过atlasIndex指向所属纹理页
+ */
+public class MultipackAtlas {
+
+    // 文件名形如 name-0、name-1 ...
+    private static final Pattern PAGE_PATTERN = Pattern.compile("^(.*)-(\\d+)$");
+
+    public final String name;
+    public final List<File> pageFiles;
+    public final PListParser.TextureAtlasInfo atlasInfo;
+    public final TexturePages pages;
+
+    private MultipackAtlas(String name, List<File> pageFiles, PListParser.TextureAtlasInfo atlasInfo, TexturePages pages) {
+        this.name = name;
+        this.pageFiles = pageFiles;
+        this.atlasInfo = atlasInfo;
+        this.pages = pages;
+    }
+
+    /**
+     * 判断图集文件是否属于multipack，是则加载所有分页，否则返回null
+     * 分页需从0开始连续编号，且至少两页
+     */
+    public static MultipackAtlas detect(File atlasFile) throws Exception {
+        File parentDir = atlasFile.getAbsoluteFile().getParentFile();
+        String fileName = atlasFile.getName();
+        int dot = fileName.lastIndexOf('.');
+        if (parentDir == null || dot <= 0) return null;
+        String extension = fileName.substring(dot);
+        Matcher m = PAGE_PATTERN.matcher(fileName.substring(0, dot));
+        if (!m.matches()) return null;
+
+        String prefix = m.group(1);
+        List<File> pageFiles = new ArrayList<>();
+        // 逐个探测分页文件，无需列出整个目录
+        for (int i = 0; ; i++) {
+            File page = new File(parentDir, prefix + "-" + i + extension);
+            if (!page.isFile()) break;
+            pageFiles.add(page);
+        }
+        if (pageFiles.size() < 2) return null;
+
+        PListParser.TextureAtlasInfo combined = new PListParser.TextureAtlasInfo();
+        File[] textureFiles = new File[pageFiles.size()];
+        for (int i = 0; i < pageFiles.size(); i++) {
+            PListParser.TextureAtlasInfo pageInfo = AtlasCache.getInstance().get(pageFiles.get(i));
+            if (i == 0) {
+                combined.textureFileName = pageInfo.textureFileName;
+                combined.realTextureFileName = pageInfo.realTextureFileName;
+                combined.textureSize = pageInfo.textureSize;
+                combined.pixelFormat = pageInfo.pixelFormat;
+                combined.format = pageInfo.format;
+            }
+            // 缓存中的FrameInfo为各分页共享且不可修改，另建标记了所属页的对象
+            for (PListParser.FrameInfo frame : pageInfo.frames.values()) {
+                PListParser.FrameInfo paged = frame.withAtlasIndex(i);
+                combined.frames.put(paged.name, paged);
+            }
+            for (java.util.Map.Entry<String, PListParser.FrameInfo> alias : pageInfo.aliases.entrySet()) {
+                PListParser.FrameInfo target = combined.frames.get(alias.getValue().name);
+                if (target != null) {
+                    combined.aliases.put(alias.getKey(), target);
+                }
+            }
+            textureFiles[i] = TextureFiles.find(pageFiles.get(i), pageInfo);
+        }
+        combined.indexSequences();
+
+        return new MultipackAtlas(prefix, pageFiles, combined, new TexturePages(textureFiles));
+    }
+}
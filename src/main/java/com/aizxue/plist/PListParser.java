@@ -1,10 +1,16 @@
 package com.aizxue.plist;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.*;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.awt.Rectangle;
 import java.awt.Point;
 import java.awt.Dimension;
@@ -14,184 +20,553 @@ import java.awt.Dimension;
  */
 public class PListParser {
     
+    /**
+     * 帧信息，构造后不再修改：AtlasCache把同一个对象共享给播放器、网格、缩略图与清单。
+     * 矩形等对象在构造时复制，使用方只读不写
+     */
     public static class FrameInfo {
-        public Rectangle frame;        // 在纹理图集中的位置和大小
-        public Point offset;          // 偏移量
-        public boolean rotated;       // 是否旋转
-        public Rectangle sourceColorRect; // 源颜色矩形
-        public Dimension sourceSize;  // 源尺寸
-        public String name;           // 帧名称
-        
-        public FrameInfo(String name) {
+        public final Rectangle frame;        // 在纹理图集中的位置和大小
+        public final Point offset;          // 偏移量
+        public final boolean rotated;       // 是否旋转
+        public final Rectangle sourceColorRect; // 源颜色矩形
+        public final Dimension sourceSize;  // 源尺寸
+        public final String name;           // 帧名称
+        public final int atlasIndex;        // 所属纹理页（multipack），单页图集为0
+        
+        public FrameInfo(String name, Rectangle frame, Point offset, boolean rotated,
+                         Rectangle sourceColorRect, Dimension sourceSize, int atlasIndex) {
             this.name = name;
+            this.frame = frame != null ? new Rectangle(frame) : null;
+            this.offset = offset != null ? new Point(offset) : null;
+            this.rotated = rotated;
+            this.sourceColorRect = sourceColorRect != null ? new Rectangle(sourceColorRect) : null;
+            this.sourceSize = sourceSize != null ? new Dimension(sourceSize) : null;
+            this.atlasIndex = atlasIndex;
+        }
+        
+        /**
+         * 同一帧归属到指定纹理页（multipack合并各页时使用）
+         */
+        public FrameInfo withAtlasIndex(int atlasIndex) {
+            return new FrameInfo(name, frame, offset, rotated, sourceColorRect, sourceSize, atlasIndex);
         }
     }
     
     public static class TextureAtlasInfo {
         public Map<String, FrameInfo> frames = new LinkedHashMap<>();
+        // 别名 -> 共享的帧信息（format 3 的aliases），不参与动画序列
+        public Map<String, FrameInfo> aliases = new LinkedHashMap<>();
         public String textureFileName;
+        public String realTextureFileName; // metadata中的realTextureFileName（实际纹理文件名，可能与textureFileName不同）
         public Dimension textureSize;
         public String pixelFormat;
+        public int format = -1;     // metadata中的格式版本，-1表示未声明
+        
+        /**
+         * 按名称查找帧，名称可以是帧名或别名
+         */
+        public FrameInfo getFrame(String name) {
+            FrameInfo frameInfo = frames.get(name);
+            return frameInfo != null ? frameInfo : aliases.get(name);
+        }
+        
+        // 解析完成后建立的索引：排序后的帧列表与按名称分组的动画序列
+        private List<FrameInfo> orderedFrames;
+        private Map<String, AnimationSequence> sequences = Collections.emptyMap();
         
         public List<FrameInfo> getFramesInOrder() {
-            List<FrameInfo> frameList = new ArrayList<>();
-            // 按数字顺序排序帧
-            List<String> sortedKeys = new ArrayList<>(frames.keySet());
-            Collections.sort(sortedKeys, new Comparator<String>() {
-                @Override
-                public int compare(String a, String b) {
-                    try {
-                        int numA = Integer.parseInt(a);
-                        int numB = Integer.parseInt(b);
-                        return Integer.compare(numA, numB);
-                    } catch (NumberFormatException e) {
-                        return a.compareTo(b);
+            if (orderedFrames != null) {
+                return orderedFrames;
+            }
+            List<FrameInfo> frameList = new ArrayList<>(frames.size());
+            for (FrameSortKey key : sortedKeys()) {
+                frameList.add(key.frame);
+            }
+            return frameList;
+        }
+        
+        // 按 前缀 + 末尾编号 排序（run_2 在 run_10 之前），与动画序列的分组键一致
+        private List<FrameSortKey> sortedKeys() {
+            List<FrameSortKey> keys = new ArrayList<>(frames.size());
+            for (Map.Entry<String, FrameInfo> e : frames.entrySet()) {
+                keys.add(new FrameSortKey(e.getKey(), e.getValue()));
+            }
+            Collections.sort(keys);
+            return keys;
+        }
+        
+        /**
+         * 图集内的动画序列（如 idle_*, run_*），按出现顺序排列
+         */
+        public Map<String, AnimationSequence> getSequences() {
+            return sequences;
+        }
+        
+        /**
+         * 建立帧顺序与动画序列索引，帧数据变化后需重新调用
+         * 帧名形如 "run_01.png"、"attack-2"、"idle3" 时，按去掉末尾编号后的前缀分组，组内按编号排序
+         */
+        public void indexSequences() {
+            List<FrameSortKey> keys = sortedKeys();
+            List<FrameInfo> frameList = new ArrayList<>(keys.size());
+            for (FrameSortKey key : keys) {
+                frameList.add(key.frame);
+            }
+            List<FrameInfo> ordered = Collections.unmodifiableList(frameList);
+            
+            Map<String, List<int[]>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                FrameSortKey key = keys.get(i);
+                List<int[]> group = groups.get(key.prefix);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(key.prefix, group);
+                }
+                // {编号, 在orderedFrames中的位置}
+                group.add(new int[]{key.number, i});
+            }
+            
+            Map<String, AnimationSequence> result = new LinkedHashMap<>();
+            for (Map.Entry<String, List<int[]>> e : groups.entrySet()) {
+                List<int[]> group = e.getValue();
+                Collections.sort(group, new Comparator<int[]>() {
+                    @Override
+                    public int compare(int[] a, int[] b) {
+                        int c = Integer.compare(a[0], b[0]);
+                        return c != 0 ? c : Integer.compare(a[1], b[1]);
                     }
+                });
+                int[] offsets = new int[group.size()];
+                List<FrameInfo> sequenceFrames = new ArrayList<>(group.size());
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = group.get(i)[1];
+                    sequenceFrames.add(ordered.get(offsets[i]));
                 }
-            });
+                String name = e.getKey().isEmpty() ? DEFAULT_SEQUENCE_NAME : e.getKey();
+                result.put(name, new AnimationSequence(name, offsets, Collections.unmodifiableList(sequenceFrames)));
+            }
             
-            for (String key : sortedKeys) {
-                frameList.add(frames.get(key));
+            this.orderedFrames = ordered;
+            this.sequences = Collections.unmodifiableMap(result);
+        }
+    }
+    
+    /**
+     * 一个命名的动画序列：frameOffsets为各帧在getFramesInOrder()中的下标
+     */
+    public static class AnimationSequence {
+        public final String name;
+        public final int[] frameOffsets;
+        public final List<FrameInfo> frames;
+        
+        public AnimationSequence(String name, int[] frameOffsets, List<FrameInfo> frames) {
+            this.name = name;
+            this.frameOffsets = frameOffsets;
+            this.frames = frames;
+        }
+    }
+    
+    public static final String DEFAULT_SEQUENCE_NAME = "默认";
+    
+    // 前缀 + 可选分隔符 + 末尾编号
+    private static final Pattern SEQUENCE_PATTERN = Pattern.compile("^(.*?)[_\\-. ]?(\\d+)$");
+    
+    /**
+     * 帧的排序键：去掉图片扩展名后拆成 前缀 + 末尾编号，依次按前缀、编号、完整名称比较
+     * 没有末尾编号的帧编号为-1，排在同前缀的编号帧之前
+     */
+    private static final class FrameSortKey implements Comparable<FrameSortKey> {
+        final String prefix;
+        final int number;
+        final String name;
+        final FrameInfo frame;
+        
+        FrameSortKey(String name, FrameInfo frame) {
+            this.name = name != null ? name : "";
+            this.frame = frame;
+            String baseName = stripFrameExtension(this.name);
+            Matcher m = SEQUENCE_PATTERN.matcher(baseName);
+            if (m.matches()) {
+                prefix = m.group(1);
+                number = parseFrameNumber(m.group(2));
+            } else {
+                prefix = baseName;
+                number = -1;
             }
-            return frameList;
+        }
+        
+        @Override
+        public int compareTo(FrameSortKey other) {
+            int c = prefix.compareTo(other.prefix);
+            if (c != 0) return c;
+            c = Integer.compare(number, other.number);
+            return c != 0 ? c : name.compareTo(other.name);
+        }
+    }
+    
+    private static String stripFrameExtension(String name) {
+        String lowerName = name.toLowerCase();
+        if (lowerName.endsWith(".png") || lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg")
+                || lowerName.endsWith(".dds") || lowerName.endsWith(".tga") || lowerName.endsWith(".webp")) {
+            return name.substring(0, name.lastIndexOf('.'));
+        }
+        return name;
+    }
+    
+    private static int parseFrameNumber(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
         }
     }
     
+    /**
+     * 解析图集描述文件，根据扩展名或内容自动选择plist或TexturePacker JSON解析
+     */
+    public static TextureAtlasInfo parseAtlas(File atlasFile) throws Exception {
+        if (isJsonAtlas(atlasFile)) {
+            return JsonAtlasParser.parseJson(atlasFile);
+        }
+        return parsePList(atlasFile);
+    }
+    
+    /**
+     * 判断文件是否为支持的图集描述文件（.plist 或 TexturePacker导出的 .json）
+     */
+    public static boolean isAtlasFile(File file) {
+        String lowerName = file.getName().toLowerCase();
+        if (lowerName.endsWith(".plist")) {
+            return true;
+        }
+        return lowerName.endsWith(".json") && JsonAtlasParser.looksLikeAtlas(file);
+    }
+    
+    private static boolean isJsonAtlas(File file) {
+        String lowerName = file.getName().toLowerCase();
+        if (lowerName.endsWith(".json")) {
+            return true;
+        }
+        if (lowerName.endsWith(".plist")) {
+            return false;
+        }
+        // 未知扩展名时按内容判断
+        return JsonAtlasParser.looksLikeAtlas(file);
+    }
+    
     public static TextureAtlasInfo parsePList(File plistFile) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(plistFile);
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // 不加载外部DTD（plist头部的Apple DTD需要联网）
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
         
         TextureAtlasInfo atlasInfo = new TextureAtlasInfo();
+        List<FrameBuilder> builders = new ArrayList<>();
         
-        // 获取根节点
-        Element root = doc.getDocumentElement();
-        NodeList dictNodes = root.getElementsByTagName("dict");
+        try (InputStream in = new BufferedInputStream(new FileInputStream(plistFile), 64 * 1024)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                // 定位到根节点下的第一个dict
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "dict".equals(reader.getLocalName())) {
+                        parseMainDict(reader, atlasInfo, builders);
+                        break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
         
-        if (dictNodes.getLength() > 0) {
-            Element mainDict = (Element) dictNodes.item(0);
-            parseMainDict(mainDict, atlasInfo);
+        // metadata通常位于frames之后，读完整个文件后再按格式版本生成帧信息
+        for (FrameBuilder builder : builders) {
+            FrameInfo frameInfo = builder.build(atlasInfo.format);
+            atlasInfo.frames.put(builder.name, frameInfo);
+            if (builder.aliases != null) {
+                for (String alias : builder.aliases) {
+                    atlasInfo.aliases.put(alias, frameInfo);
+                }
+            }
         }
+        atlasInfo.indexSequences();
         
         return atlasInfo;
     }
     
-    private static void parseMainDict(Element dictElement, TextureAtlasInfo atlasInfo) {
-        NodeList children = dictElement.getChildNodes();
+    private static void parseMainDict(XMLStreamReader reader, TextureAtlasInfo atlasInfo, List<FrameBuilder> builders) throws XMLStreamException {
         String currentKey = null;
-        
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                Element element = (Element) node;
-                String tagName = element.getTagName();
-                
-                if ("key".equals(tagName)) {
-                    currentKey = element.getTextContent();
-                } else if ("dict".equals(tagName) && currentKey != null) {
-                    if ("frames".equals(currentKey)) {
-                        parseFramesDict(element, atlasInfo);
-                    } else if ("metadata".equals(currentKey)) {
-                        parseMetadataDict(element, atlasInfo);
-                    }
-                    currentKey = null;
-                }
+        while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+            String tagName = reader.getLocalName();
+            if ("key".equals(tagName)) {
+                currentKey = reader.getElementText();
+            } else if ("dict".equals(tagName) && "frames".equals(currentKey)) {
+                parseFramesDict(reader, builders);
+                currentKey = null;
+            } else if ("dict".equals(tagName) && "metadata".equals(currentKey)) {
+                parseMetadataDict(reader, atlasInfo);
+                currentKey = null;
+            } else {
+                skipElement(reader);
+                currentKey = null;
             }
         }
     }
     
-    private static void parseFramesDict(Element framesDict, TextureAtlasInfo atlasInfo) {
-        NodeList children = framesDict.getChildNodes();
+    private static void parseFramesDict(XMLStreamReader reader, List<FrameBuilder> builders) throws XMLStreamException {
         String currentFrameName = null;
+        while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+            String tagName = reader.getLocalName();
+            if ("key".equals(tagName)) {
+                currentFrameName = reader.getElementText();
+            } else if ("dict".equals(tagName) && currentFrameName != null) {
+                builders.add(parseFrameDict(reader, currentFrameName));
+                currentFrameName = null;
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+    
+    // 帧字段编号，不同格式版本的键名映射到同一个字段
+    private static final int F_FRAME = 1;
+    private static final int F_OFFSET = 2;
+    private static final int F_ROTATED = 3;
+    private static final int F_SOURCE_COLOR_RECT = 4;
+    private static final int F_SOURCE_SIZE = 5;
+    private static final int F_SPRITE_SIZE = 6;
+    private static final int F_ALIASES = 7;
+    private static final int F_X = 8;
+    private static final int F_Y = 9;
+    private static final int F_WIDTH = 10;
+    private static final int F_HEIGHT = 11;
+    private static final int F_OFFSET_X = 12;
+    private static final int F_OFFSET_Y = 13;
+    private static final int F_ORIGINAL_WIDTH = 14;
+    private static final int F_ORIGINAL_HEIGHT = 15;
+    
+    private static final Map<String, Integer> FRAME_KEYS = new HashMap<>();
+    static {
+        // format 1/2
+        FRAME_KEYS.put("frame", F_FRAME);
+        FRAME_KEYS.put("offset", F_OFFSET);
+        FRAME_KEYS.put("rotated", F_ROTATED);
+        FRAME_KEYS.put("sourceColorRect", F_SOURCE_COLOR_RECT);
+        FRAME_KEYS.put("sourceSize", F_SOURCE_SIZE);
+        // format 3
+        FRAME_KEYS.put("textureRect", F_FRAME);
+        FRAME_KEYS.put("spriteOffset", F_OFFSET);
+        FRAME_KEYS.put("textureRotated", F_ROTATED);
+        FRAME_KEYS.put("spriteSourceSize", F_SOURCE_SIZE);
+        FRAME_KEYS.put("spriteSize", F_SPRITE_SIZE);
+        FRAME_KEYS.put("aliases", F_ALIASES);
+        // format 0
+        FRAME_KEYS.put("x", F_X);
+        FRAME_KEYS.put("y", F_Y);
+        FRAME_KEYS.put("width", F_WIDTH);
+        FRAME_KEYS.put("height", F_HEIGHT);
+        FRAME_KEYS.put("offsetX", F_OFFSET_X);
+        FRAME_KEYS.put("offsetY", F_OFFSET_Y);
+        FRAME_KEYS.put("originalWidth", F_ORIGINAL_WIDTH);
+        FRAME_KEYS.put("originalHeight", F_ORIGINAL_HEIGHT);
+    }
+    
+    private static FrameBuilder parseFrameDict(XMLStreamReader reader, String frameName) throws XMLStreamException {
+        FrameBuilder builder = new FrameBuilder(frameName);
+        int field = 0;
         
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                Element element = (Element) node;
-                String tagName = element.getTagName();
-                
-                if ("key".equals(tagName)) {
-                    currentFrameName = element.getTextContent();
-                } else if ("dict".equals(tagName) && currentFrameName != null) {
-                    FrameInfo frameInfo = parseFrameDict(element, currentFrameName);
-                    atlasInfo.frames.put(currentFrameName, frameInfo);
-                    currentFrameName = null;
-                }
+        while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+            String tagName = reader.getLocalName();
+            if ("key".equals(tagName)) {
+                Integer id = FRAME_KEYS.get(reader.getElementText());
+                field = id != null ? id : 0;
+                continue;
             }
+            
+            switch (field) {
+                case F_ROTATED:
+                    builder.rotated = "true".equals(tagName);
+                    skipElement(reader);
+                    break;
+                case F_ALIASES:
+                    builder.aliases = readStringArray(reader);
+                    break;
+                case 0:
+                    skipElement(reader);
+                    break;
+                default:
+                    builder.set(field, reader.getElementText());
+                    break;
+            }
+            field = 0;
         }
+        
+        return builder;
     }
     
-    private static FrameInfo parseFrameDict(Element frameDict, String frameName) {
-        FrameInfo frameInfo = new FrameInfo(frameName);
-        NodeList children = frameDict.getChildNodes();
+    private static void parseMetadataDict(XMLStreamReader reader, TextureAtlasInfo atlasInfo) throws XMLStreamException {
         String currentKey = null;
         
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                Element element = (Element) node;
-                String tagName = element.getTagName();
-                
-                if ("key".equals(tagName)) {
-                    currentKey = element.getTextContent();
-                } else if (currentKey != null) {
-                    String value = element.getTextContent();
-                    
-                    switch (currentKey) {
-                        case "frame":
-                            frameInfo.frame = parseRect(value);
-                            break;
-                        case "offset":
-                            frameInfo.offset = parsePoint(value);
-                            break;
-                        case "rotated":
-                            frameInfo.rotated = "true".equals(tagName);
-                            break;
-                        case "sourceColorRect":
-                            frameInfo.sourceColorRect = parseRect(value);
-                            break;
-                        case "sourceSize":
-                            frameInfo.sourceSize = parseSize(value);
-                            break;
-                    }
+        while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+            String tagName = reader.getLocalName();
+            if ("key".equals(tagName)) {
+                currentKey = reader.getElementText();
+            } else if (currentKey != null) {
+                if ("dict".equals(tagName) || "array".equals(tagName)) {
+                    skipElement(reader);
                     currentKey = null;
+                    continue;
+                }
+                String value = reader.getElementText();
+                
+                switch (currentKey) {
+                    case "textureFileName":
+                        atlasInfo.textureFileName = value;
+                        break;
+                    case "realTextureFileName":
+                        atlasInfo.realTextureFileName = value;
+                        break;
+                    case "size":
+                        atlasInfo.textureSize = parseSize(value);
+                        break;
+                    case "pixelFormat":
+                        atlasInfo.pixelFormat = value;
+                        break;
+                    case "format":
+                        try {
+                            atlasInfo.format = Integer.parseInt(value.trim());
+                        } catch (NumberFormatException ignore) {
+                        }
+                        break;
                 }
+                currentKey = null;
+            } else {
+                skipElement(reader);
             }
         }
-        
-        return frameInfo;
     }
     
-    private static void parseMetadataDict(Element metadataDict, TextureAtlasInfo atlasInfo) {
-        NodeList children = metadataDict.getChildNodes();
-        String currentKey = null;
+    private static List<String> readStringArray(XMLStreamReader reader) throws XMLStreamException {
+        List<String> values = new ArrayList<>();
+        while (nextTag(reader) == XMLStreamConstants.START_ELEMENT) {
+            if ("string".equals(reader.getLocalName())) {
+                values.add(reader.getElementText());
+            } else {
+                skipElement(reader);
+            }
+        }
+        return values;
+    }
+    
+    // 跳过空白与注释，返回下一个START_ELEMENT或END_ELEMENT
+    private static int nextTag(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                return event;
+            }
+        }
+        return XMLStreamConstants.END_DOCUMENT;
+    }
+    
+    // 跳过当前元素及其全部子节点（当前位于START_ELEMENT）
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    /**
+     * 单帧字段暂存，待读到metadata中的format后统一生成FrameInfo
+     */
+    private static class FrameBuilder {
+        final String name;
+        Rectangle frame;
+        Point offset;
+        boolean rotated;
+        Rectangle sourceColorRect;
+        Dimension sourceSize;
+        Dimension spriteSize;
+        List<String> aliases;
+        // format 0 的标量字段
+        double x, y, width, height, offsetX, offsetY, originalWidth, originalHeight;
         
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                Element element = (Element) node;
-                String tagName = element.getTagName();
-                
-                if ("key".equals(tagName)) {
-                    currentKey = element.getTextContent();
-                } else if (currentKey != null) {
-                    String value = element.getTextContent();
-                    
-                    switch (currentKey) {
-                        case "textureFileName":
-                        case "realTextureFileName":
-                            atlasInfo.textureFileName = value;
-                            break;
-                        case "size":
-                            atlasInfo.textureSize = parseSize(value);
-                            break;
-                        case "pixelFormat":
-                            atlasInfo.pixelFormat = value;
-                            break;
-                    }
-                    currentKey = null;
+        FrameBuilder(String name) {
+            this.name = name;
+        }
+        
+        void set(int field, String value) {
+            switch (field) {
+                case F_FRAME: frame = parseRect(value); break;
+                case F_OFFSET: offset = parsePoint(value); break;
+                case F_SOURCE_COLOR_RECT: sourceColorRect = parseRect(value); break;
+                case F_SOURCE_SIZE: sourceSize = parseSize(value); break;
+                case F_SPRITE_SIZE: spriteSize = parseSize(value); break;
+                case F_X: x = parseNumber(value); break;
+                case F_Y: y = parseNumber(value); break;
+                case F_WIDTH: width = parseNumber(value); break;
+                case F_HEIGHT: height = parseNumber(value); break;
+                case F_OFFSET_X: offsetX = parseNumber(value); break;
+                case F_OFFSET_Y: offsetY = parseNumber(value); break;
+                case F_ORIGINAL_WIDTH: originalWidth = parseNumber(value); break;
+                case F_ORIGINAL_HEIGHT: originalHeight = parseNumber(value); break;
+            }
+        }
+        
+        FrameInfo build(int format) {
+            Rectangle frameRect;
+            Point frameOffset;
+            Dimension originalSize;
+            boolean frameRotated;
+            if (format == 0 || (frame == null && width > 0 && height > 0)) {
+                // format 0：各分量单独存储，且不支持旋转
+                frameRect = new Rectangle(round(x), round(y), round(width), round(height));
+                frameOffset = new Point(round(offsetX), round(offsetY));
+                originalSize = new Dimension(round(originalWidth), round(originalHeight));
+                frameRotated = false;
+            } else {
+                frameRect = frame;
+                frameOffset = offset;
+                originalSize = sourceSize;
+                // format 1 没有旋转
+                frameRotated = format != 1 && rotated;
+                // format 3 的textureRect可能只有位置，尺寸由spriteSize给出
+                if (frameRect != null && spriteSize != null
+                        && (frameRect.width == 0 || frameRect.height == 0)) {
+                    frameRect = new Rectangle(frameRect.getLocation(), spriteSize);
                 }
             }
+            
+            Rectangle colorRect = sourceColorRect;
+            if (colorRect == null && frameRect != null && originalSize != null) {
+                // format 0/3 没有sourceColorRect：由原图尺寸、裁剪尺寸与中心偏移推算（offset的y轴向上）
+                int w = spriteSize != null ? spriteSize.width : frameRect.width;
+                int h = spriteSize != null ? spriteSize.height : frameRect.height;
+                int ox = frameOffset != null ? frameOffset.x : 0;
+                int oy = frameOffset != null ? frameOffset.y : 0;
+                int cx = (originalSize.width - w) / 2 + ox;
+                int cy = (originalSize.height - h) / 2 - oy;
+                colorRect = new Rectangle(cx, cy, w, h);
+            }
+            return new FrameInfo(name, frameRect, frameOffset, frameRotated, colorRect, originalSize, 0);
+        }
+    }
+    
+    private static int round(double value) {
+        return (int) Math.round(value);
+    }
+    
+    private static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
     
@@ -0,0 +1,75 @@
+package com.aizxue.plist;
+
+/**
+ * 基于System.nanoTime的播放时钟
+ * 根据经过的时间直接计算应显示的帧号，不累计定时器误差；支持小数帧率（如精确的24fps）
+ */
+public class PlaybackClock {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private double fps;
+    private long anchorNanos;   // 锚点时刻
+    private double anchorFrame; // 锚点时刻对应的帧位置（可含小数相位）
+    private boolean running = false;
+
+    public PlaybackClock(double fps) {
+        this.fps = fps;
+    }
+
+    /**
+     * 从指定帧号开始计时
+     */
+    public synchronized void start(long frameNumber) {
+        anchorNanos = System.nanoTime();
+        anchorFrame = frameNumber;
+        running = true;
+    }
+
+    public synchronized void stop() {
+        running = false;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized double getFps() {
+        return fps;
+    }
+
+    /**
+     * 修改帧率；播放中时以当前位置为新锚点，画面不会跳变
+     */
+    public synchronized void setFps(double fps) {
+        if (fps <= 0) throw new IllegalArgumentException("fps必须大于0");
+        if (running) {
+            long now = System.nanoTime();
+            anchorFrame = position(now);
+            anchorNanos = now;
+        }
+        this.fps = fps;
+    }
+
+    public synchronized double getFrameDurationNanos() {
+        return NANOS_PER_SECOND / fps;
+    }
+
+    /**
+     * 给定时刻应显示的帧号（单调递增，调用方自行对帧数取模）
+     */
+    public synchronized long frameAt(long nowNanos) {
+        return (long) Math.floor(position(nowNanos));
+    }
+
+    /**
+     * 指定帧号开始显示的时刻
+     */
+    public synchronized long nanosOfFrame(long frameNumber) {
+        return anchorNanos + (long) Math.ceil((frameNumber - anchorFrame) * NANOS_PER_SECOND / fps);
+    }
+
+    private double position(long nowNanos) {
+        return anchorFrame + (nowNanos - anchorNanos) * fps / NANOS_PER_SECOND;
+    }
+}
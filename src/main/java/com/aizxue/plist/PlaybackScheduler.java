@@ -0,0 +1,86 @@
+package com.aizxue.plist;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 播放调度线程，替代javax.swing.Timer
+ * 在每个帧边界唤醒，把当前应显示的帧号投递到EDT；EDT未处理完上一帧时合并投递，
+ * 渲染跟不上时直接跳到时钟对应的帧，而不是拖慢动画
+ */
+public class PlaybackScheduler {
+
+    /**
+     * 帧回调，在EDT上执行
+     */
+    public interface FrameListener {
+        void onFrame(long frameNumber);
+    }
+
+    // 距目标时刻不足此值时改为自旋，弥补parkNanos的唤醒误差
+    private static final long SPIN_THRESHOLD_NANOS = 200_000L;
+
+    private final PlaybackClock clock;
+    private final FrameListener listener;
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+    private volatile Thread thread;
+
+    public PlaybackScheduler(PlaybackClock clock, FrameListener listener) {
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (thread != null) return;
+        Thread t = new Thread(this::run, "playback-scheduler");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY + 2);
+        thread = t;
+        t.start();
+    }
+
+    public synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        long lastFrame = clock.frameAt(System.nanoTime());
+        while (thread == self) {
+            long target = clock.nanosOfFrame(lastFrame + 1);
+            long remaining = target - System.nanoTime();
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NANOS);
+                continue; // 重新计算剩余时间（可能被提前唤醒或帧率已改变）
+            }
+            while (System.nanoTime() < target) {
+                Thread.yield();
+            }
+            if (thread != self) break;
+
+            long frame = clock.frameAt(System.nanoTime());
+            if (frame <= lastFrame) {
+                continue;
+            }
+            lastFrame = frame;
+            // EDT尚未处理上一次投递时不再重复投递，处理时按时钟读取最新帧号
+            if (pending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    pending.set(false);
+                    if (thread != null) {
+                        listener.onFrame(clock.frameAt(System.nanoTime()));
+                    }
+                });
+            }
+        }
+    }
+}
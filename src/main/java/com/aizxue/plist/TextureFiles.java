@@ -0,0 +1,47 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * 纹理文件查找与解码
+ */
+public class TextureFiles {
+
+    /**
+     * 在图集描述文件所在目录中查找与其同名的纹理文件（png/jpg/jpeg/dds）
+     */
+    public static File find(File atlasFile) {
+        return find(atlasFile, null);
+    }
+
+    /**
+     * 查找图集的纹理文件：优先使用metadata中的纹理文件名，其次是同名文件；经由目录索引查找，不再逐个列目录
+     */
+    public static File find(File atlasFile, PListParser.TextureAtlasInfo info) {
+        return TextureIndex.resolve(atlasFile, info);
+    }
+
+    /**
+     * 解码纹理文件，DDS使用DDSImageLoader，其他格式使用ImageIO
+     */
+    public static BufferedImage load(File textureFile) throws IOException {
+        if (textureFile.getName().toLowerCase().endsWith(".dds")) {
+            return DDSImageLoader.loadDDS(textureFile);
+        }
+        BufferedImage image = ImageIO.read(textureFile);
+        if (image == null) {
+            throw new IOException("无法识别的图像格式: " + textureFile.getName());
+        }
+        return image;
+    }
+
+    /**
+     * 同load，但经由共享的TextureRegistry：同一文件未修改时不重复解码，并发请求只解码一次
+     */
+    public static BufferedImage loadCached(File textureFile) throws IOException {
+        return TextureRegistry.getInstance().get(textureFile);
+    }
+}
@@ -0,0 +1,114 @@
+package com.aizxue.plist;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按目录建立的纹理文件索引
+ * 每个目录只列出一次，之后按文件名（不区分大小写）O(1)查找；目录修改时间变化后自动重建。
+ * 扫描文件夹时可直接用扫描得到的文件列表登记，无需再次列目录。
+ */
+public class TextureIndex {
+
+    // 同名纹理存在多种格式时的优先级
+    private static final String[] EXTENSIONS = { ".png", ".jpg", ".jpeg", ".dds" };
+
+    private static final Map<String, TextureIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final long lastModified;
+    // 小写文件名 -> 纹理文件
+    private final Map<String, File> byName = new HashMap<>();
+
+    private TextureIndex(long lastModified, File[] files) {
+        this.lastModified = lastModified;
+        for (File file : files) {
+            String lowerName = file.getName().toLowerCase(Locale.ROOT);
+            if (isTextureName(lowerName)) {
+                byName.put(lowerName, file);
+            }
+        }
+    }
+
+    /**
+     * 用已列出的目录内容登记索引（扫描文件夹时调用）
+     */
+    public static void register(File directory, File[] files) {
+        File dir = directory.getAbsoluteFile();
+        INDEXES.put(dir.getPath(), new TextureIndex(dir.lastModified(), files));
+    }
+
+    /**
+     * 获取目录索引，不存在或目录已变化时重新列出
+     */
+    public static TextureIndex forDirectory(File directory) {
+        File dir = directory.getAbsoluteFile();
+        long lastModified = dir.lastModified();
+        TextureIndex index = INDEXES.get(dir.getPath());
+        if (index == null || index.lastModified != lastModified) {
+            File[] files = dir.listFiles();
+            index = new TextureIndex(lastModified, files != null ? files : new File[0]);
+            INDEXES.put(dir.getPath(), index);
+        }
+        return index;
+    }
+
+    /**
+     * 丢弃目录索引，下次查找时重建
+     */
+    public static void invalidate(File directory) {
+        INDEXES.remove(directory.getAbsoluteFile().getPath());
+    }
+
+    /**
+     * 解析图集对应的纹理文件：
+     * 先按metadata中的realTextureFileName、textureFileName（含换了扩展名的同名文件），
+     * 再按与图集文件完全同名（仅扩展名不同）的纹理；都没有时返回null
+     */
+    public static File resolve(File atlasFile, PListParser.TextureAtlasInfo info) {
+        File parentDir = atlasFile.getAbsoluteFile().getParentFile();
+        if (parentDir == null) return null;
+        TextureIndex index = forDirectory(parentDir);
+        if (info != null) {
+            File file = index.lookup(info.realTextureFileName);
+            if (file == null) file = index.lookup(info.textureFileName);
+            if (file != null) return file;
+        }
+        return index.lookupStem(stemOf(atlasFile.getName()));
+    }
+
+    private File lookup(String textureName) {
+        if (textureName == null || textureName.isEmpty()) return null;
+        // metadata中可能带有相对路径，只取文件名部分
+        String name = new File(textureName.replace('\\', '/')).getName().toLowerCase(Locale.ROOT);
+        File file = byName.get(name);
+        return file != null ? file : lookupStem(stemOf(name));
+    }
+
+    private File lookupStem(String lowerStem) {
+        for (String extension : EXTENSIONS) {
+            File file = byName.get(lowerStem + extension);
+            if (file != null) return file;
+        }
+        return null;
+    }
+
+    private static String stemOf(String fileName) {
+        String lowerName = fileName.toLowerCase(Locale.ROOT);
+        // 形如 name.pvr.ccz 的双扩展名整体去掉
+        if (lowerName.endsWith(".pvr.ccz") || lowerName.endsWith(".pvr.gz")) {
+            return lowerName.substring(0, lowerName.lastIndexOf(".pvr."));
+        }
+        int dot = lowerName.lastIndexOf('.');
+        return dot > 0 ? lowerName.substring(0, dot) : lowerName;
+    }
+
+    static boolean isTextureName(String lowerName) {
+        for (String extension : EXTENSIONS) {
+            if (lowerName.endsWith(extension)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,197 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 一个逻辑动画的多页纹理（TexturePacker multipack）
+ * 每页纹理按需在后台线程并发解码，只保留播放位置附近需要的页；
+ * 保留的页持有纹理租约，不会被共享缓存淘汰，丢弃时释放
+ */
+public class TexturePages {
+
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "texture-page-decoder-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    private final File[] textureFiles;
+    private final AtomicReferenceArray<PageTask> pages;
+    private volatile boolean disposed = false;
+
+    public TexturePages(File[] textureFiles) {
+        this.textureFiles = textureFiles;
+        this.pages = new AtomicReferenceArray<>(textureFiles.length);
+    }
+
+    public int getPageCount() {
+        return textureFiles.length;
+    }
+
+    public File getTextureFile(int index) {
+        return textureFiles[index];
+    }
+
+    /**
+     * 请求解码指定页（已在解码或已就绪时不重复提交）
+     */
+    public void request(int index) {
+        if (disposed || index < 0 || index >= textureFiles.length || textureFiles[index] == null) return;
+        if (pages.get(index) != null) return;
+        final File file = textureFiles[index];
+        PageTask task = new PageTask(file);
+        if (pages.compareAndSet(index, null, task)) {
+            DECODER.execute(task);
+        }
+    }
+
+    /**
+     * 获取已解码的页，尚未就绪时返回null并触发解码，不阻塞调用线程
+     */
+    public BufferedImage getIfReady(int index) {
+        if (index < 0 || index >= textureFiles.length) return null;
+        PageTask task = pages.get(index);
+        if (task == null) {
+            request(index);
+            return null;
+        }
+        if (!task.isDone() || task.isCancelled()) {
+            return null;
+        }
+        try {
+            return task.get().image;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 阻塞等待指定页解码完成
+     */
+    public BufferedImage get(int index) throws Exception {
+        request(index);
+        PageTask task = pages.get(index);
+        return task != null ? task.get().image : null;
+    }
+
+    /**
+     * 只保留给定页，其余页释放以回收内存
+     */
+    public void retain(Collection<Integer> needed) {
+        Set<Integer> keep = new HashSet<>(needed);
+        for (int i = 0; i < textureFiles.length; i++) {
+            if (keep.contains(i)) {
+                request(i);
+            } else {
+                PageTask old = pages.getAndSet(i, null);
+                if (old != null) {
+                    old.drop();
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前常驻（已请求或已解码）的页数
+     */
+    public int getResidentCount() {
+        int count = 0;
+        for (int i = 0; i < textureFiles.length; i++) {
+            if (pages.get(i) != null) count++;
+        }
+        return count;
+    }
+
+    public void dispose() {
+        disposed = true;
+        for (int i = 0; i < textureFiles.length; i++) {
+            PageTask old = pages.getAndSet(i, null);
+            if (old != null) {
+                old.drop();
+            }
+        }
+    }
+
+    // 一页的解码任务：尚未开始时丢弃直接取消；已开始的不取消，解码完成后释放租约
+    private static final class PageTask extends FutureTask<TextureRegistry.Lease> {
+        private final Decode decode;
+
+        PageTask(File file) {
+            this(new Decode(file));
+        }
+
+        private PageTask(Decode decode) {
+            super(decode);
+            this.decode = decode;
+        }
+
+        void drop() {
+            decode.dropped = true;
+            if (decode.started.compareAndSet(false, true)) {
+                // 抢在开始之前，任务不会再取租约
+                cancel(false);
+            } else if (isDone()) {
+                releaseLease();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (decode.dropped) {
+                releaseLease();
+            }
+        }
+
+        private void releaseLease() {
+            try {
+                TextureRegistry.Lease lease = get();
+                if (lease != null) {
+                    lease.release();
+                }
+            } catch (Exception ignore) {
+                // 已取消或解码失败，没有租约
+            }
+        }
+    }
+
+    private static final class Decode implements Callable<TextureRegistry.Lease> {
+        final File file;
+        final AtomicBoolean started = new AtomicBoolean();
+        volatile boolean dropped = false;
+
+        Decode(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public TextureRegistry.Lease call() throws Exception {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            TextureRegistry.Lease lease = TextureRegistry.getInstance().acquire(file);
+            // 解码期间被丢弃；结果写入前被丢弃的由done()释放，release可重复调用
+            if (dropped) {
+                lease.release();
+            }
+            return lease;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内共享的纹理注册表
+ * 以 规范路径 + 修改时间 + 文件大小 标识纹理；解码结果放入DecodedImageCache，
+ * 同一纹理的并发请求合并为一次解码（single-flight），缩略图、播放器与网格播放共用。
+ * 长期持有纹理的一方（当前图集、多页纹理、网格播放）通过acquire取得租约，租约释放前纹理不会被淘汰。
+ * 单张超过整个预算的纹理放不进缓存，最近一张单独强引用保存，反复打开同一张时不再重新解码。
+ */
+public class TextureRegistry {
+
+    private static final TextureRegistry INSTANCE = new TextureRegistry();
+
+    private final ByteBudgetCache<Object, BufferedImage> cache = DecodedImageCache.getInstance();
+    // 正在解码的纹理，解码完成后移除
+    private final Map<Object, CompletableFuture<BufferedImage>> inFlight = new ConcurrentHashMap<>();
+    // 最近一张超出预算的纹理；不计入预算，否则会挤掉缓存中的其他全部条目
+    private volatile OversizedTexture oversized;
+
+    private static final class OversizedTexture {
+        final Object key;
+        final BufferedImage image;
+
+        OversizedTexture(Object key, BufferedImage image) {
+            this.key = key;
+            this.image = image;
+        }
+    }
+
+    public static TextureRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 纹理租约：持有期间纹理在缓存中被钉住；release可重复调用
+     */
+    public static final class Lease {
+        public final BufferedImage image;
+        private final Object key;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(BufferedImage image, Object key) {
+            this.image = image;
+            this.key = key;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                DecodedImageCache.getInstance().unpin(key);
+            }
+        }
+    }
+
+    /**
+     * 获取解码后的纹理；已缓存时直接返回，其他线程正在解码时等待其结果
+     */
+    public BufferedImage get(File textureFile) throws IOException {
+        return get(textureFile, DecodedImageCache.textureKey(textureFile));
+    }
+
+    /**
+     * 同get，并钉住纹理直到租约释放；先钉住再解码，放入缓存时不会被立即淘汰
+     */
+    public Lease acquire(File textureFile) throws IOException {
+        Object key = DecodedImageCache.textureKey(textureFile);
+        cache.pin(key);
+        try {
+            return new Lease(get(textureFile, key), key);
+        } catch (Throwable e) {
+            cache.unpin(key);
+            throw e;
+        }
+    }
+
+    private BufferedImage get(File textureFile, Object key) throws IOException {
+        BufferedImage image = lookup(key);
+        if (image != null) {
+            return image;
+        }
+
+        CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            // 抢到解码权之前可能刚有其他线程完成
+            image = lookup(key);
+            if (image == null) {
+                image = TextureFiles.load(textureFile);
+                if (DecodedImageCache.weigh(image) > cache.getBudgetBytes()) {
+                    oversized = new OversizedTexture(key, image);
+                } else {
+                    cache.put(key, image);
+                }
+            }
+            future.complete(image);
+            return image;
+        } catch (Throwable e) {
+            // 失败也要结束future，否则等待同一纹理的线程会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private BufferedImage lookup(Object key) {
+        BufferedImage image = cache.get(key);
+        if (image == null) {
+            OversizedTexture last = oversized;
+            if (last != null && last.key.equals(key)) {
+                image = last.image;
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 在指定线程池中异步取得纹理租约
+     */
+    public CompletableFuture<Lease> acquireAsync(File textureFile, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return acquire(textureFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 释放纹理文件所有版本的解码结果；文件被修改或删除后旧版本不会再被用到
+     */
+    public void invalidate(File textureFile) {
+        String path;
+        try {
+            path = textureFile.getCanonicalPath();
+        } catch (IOException e) {
+            return;
+        }
+        cache.removeIf(key -> DecodedImageCache.isTextureKeyOf(key, path));
+        OversizedTexture last = oversized;
+        if (last != null && DecodedImageCache.isTextureKeyOf(last.key, path)) {
+            oversized = null;
+        }
+    }
+
+    /**
+     * 当前正在解码的纹理数量
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static BufferedImage await(CompletableFuture<BufferedImage> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+}
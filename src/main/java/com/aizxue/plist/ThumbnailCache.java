@@ -0,0 +1,122 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线程安全、有界的缩略图缓存
+ * 强引用部分按条目数与字节数双重限制做LRU淘汰；被淘汰的缩略图转入软引用区，
+ * 内存充足时仍可命中，内存紧张时由GC回收。生成线程写入、EDT读取均无需额外同步。
+ */
+public class ThumbnailCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 4096;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // 软引用区的条目，记下键以便GC回收后从映射中清除
+    private static final class SpilledRef extends SoftReference<BufferedImage> {
+        final String key;
+
+        SpilledRef(String key, BufferedImage image, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+
+    private final ByteBudgetCache<String, BufferedImage> strong;
+    private final Map<String, SpilledRef> spilled = new ConcurrentHashMap<>();
+    private final ReferenceQueue<BufferedImage> collected = new ReferenceQueue<>();
+    private final AtomicLong softHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ThumbnailCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, true);
+    }
+
+    /**
+     * @param softSpill 淘汰的条目是否转入软引用区
+     */
+    public ThumbnailCache(int maxEntries, long maxBytes, boolean softSpill) {
+        strong = new ByteBudgetCache<>(maxBytes, maxEntries, DecodedImageCache::weigh,
+                softSpill ? (key, image) -> spilled.put(key, new SpilledRef(key, image, collected)) : null);
+    }
+
+    public BufferedImage get(String key) {
+        purgeCollected();
+        BufferedImage image = strong.get(key);
+        if (image != null) {
+            return image;
+        }
+        SpilledRef ref = spilled.remove(key);
+        image = ref != null ? ref.get() : null;
+        if (image != null) {
+            // 软引用区命中后重新提升为强引用
+            softHits.incrementAndGet();
+            strong.put(key, image);
+            return image;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public boolean contains(String key) {
+        if (strong.containsKey(key)) return true;
+        SpilledRef ref = spilled.get(key);
+        return ref != null && ref.get() != null;
+    }
+
+    public void put(String key, BufferedImage image) {
+        purgeCollected();
+        spilled.remove(key);
+        strong.put(key, image);
+    }
+
+    public void remove(String key) {
+        strong.remove(key);
+        spilled.remove(key);
+    }
+
+    public void clear() {
+        strong.clear();
+        spilled.clear();
+    }
+
+    // 移除已被GC回收的软引用条目，避免映射本身无限增长
+    private void purgeCollected() {
+        Reference<? extends BufferedImage> ref;
+        while ((ref = collected.poll()) != null) {
+            SpilledRef spilledRef = (SpilledRef) ref;
+            spilled.remove(spilledRef.key, spilledRef);
+        }
+    }
+
+    public long getHitCount() {
+        return strong.getHitCount() + softHits.get();
+    }
+
+    public long getSoftHitCount() {
+        return softHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return strong.getEvictionCount();
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = getHitCount();
+        long total = hitCount + misses.get();
+        return String.format("条目 %d (软引用 %d), 占用 %.1f / %.1f MB, 命中 %d (软引用 %d), 未命中 %d, 命中率 %.1f%%, 淘汰 %d",
+                strong.size(), spilled.size(), strong.getWeightedSize() / 1048576.0, strong.getBudgetBytes() / 1048576.0,
+                hitCount, softHits.get(), misses.get(), total == 0 ? 0.0 : hitCount * 100.0 / total, strong.getEvictionCount());
+    }
+}
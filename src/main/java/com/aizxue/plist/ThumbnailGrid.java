@@ -0,0 +1,288 @@
+package com.aizxue.plist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 虚拟化的缩略图网格
+ * 不为每个文件创建组件：布局按固定格子尺寸算术计算，只绘制可视区域内的格子，
+ * 点击按坐标换算出格子序号。滚动与缩放的开销与文件总数无关。
+ */
+public class ThumbnailGrid extends JComponent implements Scrollable {
+
+    public static final int CELL_WIDTH = 120;
+    public static final int CELL_HEIGHT = 140;
+    public static final int GAP = 10;
+
+    private static final int ICON_TOP = 8;
+    private static final Color BACKGROUND = new Color(245, 245, 245);
+    private static final Color CELL_BACKGROUND = new Color(238, 238, 238);
+    private static final Color CELL_BORDER = new Color(184, 184, 184);
+    private static final Color HOVER_BORDER = new Color(99, 130, 191);
+    private static final Color PLACEHOLDER_BACKGROUND = new Color(220, 220, 220);
+    private static final Color PLACEHOLDER_BORDER = new Color(180, 180, 180);
+
+    public static class Item {
+        public final String path;
+        public final String name;
+
+        public Item(String path, String name) {
+            this.path = path;
+            this.name = name;
+        }
+    }
+
+    /**
+     * 缩略图来源，绘制时在EDT调用；尚未生成时返回null，显示占位图
+     */
+    public interface ThumbnailSource {
+        BufferedImage getThumbnail(String path);
+    }
+
+    public interface ItemListener {
+        void itemClicked(Item item);
+    }
+
+    private final ThumbnailSource source;
+    private final List<Item> items = new ArrayList<>();
+    private final Map<String, Integer> indexByPath = new HashMap<>();
+    private final List<ItemListener> listeners = new ArrayList<>();
+    private int hoverIndex = -1;
+
+    public ThumbnailGrid(ThumbnailSource source) {
+        this.source = source;
+        setOpaque(true);
+        setBackground(BACKGROUND);
+        setToolTipText("");
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) return;
+                int index = indexAt(e.getX(), e.getY());
+                if (index >= 0) {
+                    Item item = items.get(index);
+                    for (ItemListener listener : new ArrayList<>(listeners)) {
+                        listener.itemClicked(item);
+                    }
+                }
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoverIndex(indexAt(e.getX(), e.getY()));
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoverIndex(-1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    public void addItemListener(ItemListener listener) {
+        listeners.add(listener);
+    }
+
+    public void setItems(List<Item> newItems) {
+        items.clear();
+        indexByPath.clear();
+        hoverIndex = -1;
+        for (Item item : newItems) {
+            addItemQuietly(item);
+        }
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * 追加一项（扫描过程中增量加入），路径重复时忽略
+     */
+    public void addItem(Item item) {
+        if (!addItemQuietly(item)) return;
+        int index = items.size() - 1;
+        if (index % getColumns() == 0) {
+            revalidate(); // 新起一行，高度变化
+        }
+        repaint(getCellBounds(index));
+    }
+
+    private boolean addItemQuietly(Item item) {
+        if (indexByPath.containsKey(item.path)) return false;
+        indexByPath.put(item.path, items.size());
+        items.add(item);
+        return true;
+    }
+
+    public void clear() {
+        setItems(Collections.<Item>emptyList());
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    public Item getItem(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * 某个缩略图生成完成后重绘对应格子
+     */
+    public void repaintItem(String path) {
+        Integer index = indexByPath.get(path);
+        if (index != null) {
+            repaint(getCellBounds(index));
+        }
+    }
+
+    public int getColumns() {
+        int width = getWidth() > 0 ? getWidth() : viewportWidth();
+        return Math.max(1, (width - GAP) / (CELL_WIDTH + GAP));
+    }
+
+    public Rectangle getCellBounds(int index) {
+        int columns = getColumns();
+        return new Rectangle(GAP + (index % columns) * (CELL_WIDTH + GAP),
+                GAP + (index / columns) * (CELL_HEIGHT + GAP), CELL_WIDTH, CELL_HEIGHT);
+    }
+
+    /**
+     * 与给定区域相交的格子序号范围 [first, end)
+     */
+    public int[] getIndexRange(Rectangle area) {
+        int columns = getColumns();
+        int rowPitch = CELL_HEIGHT + GAP;
+        int firstRow = Math.max(0, (area.y - GAP) / rowPitch);
+        int lastRow = Math.max(0, (area.y + area.height - 1 - GAP) / rowPitch);
+        int first = Math.min(items.size(), firstRow * columns);
+        int end = Math.min(items.size(), (lastRow + 1) * columns);
+        return new int[] { first, Math.max(first, end) };
+    }
+
+    public int indexAt(int x, int y) {
+        int columns = getColumns();
+        int col = (x - GAP) / (CELL_WIDTH + GAP);
+        int row = (y - GAP) / (CELL_HEIGHT + GAP);
+        if (x < GAP || y < GAP || col >= columns) return -1;
+        int index = row * columns + col;
+        if (index >= items.size() || !getCellBounds(index).contains(x, y)) return -1;
+        return index;
+    }
+
+    private void setHoverIndex(int index) {
+        if (index == hoverIndex) return;
+        if (hoverIndex >= 0 && hoverIndex < items.size()) repaint(getCellBounds(hoverIndex));
+        hoverIndex = index;
+        if (index >= 0) repaint(getCellBounds(index));
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = indexAt(e.getX(), e.getY());
+        return index >= 0 ? items.get(index).name : null;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        FontMetrics fm = g2d.getFontMetrics();
+        int[] range = getIndexRange(clip);
+        for (int i = range[0]; i < range[1]; i++) {
+            paintCell(g2d, fm, i, getCellBounds(i));
+        }
+        g2d.dispose();
+    }
+
+    private void paintCell(Graphics2D g, FontMetrics fm, int index, Rectangle cell) {
+        Item item = items.get(index);
+        g.setColor(CELL_BACKGROUND);
+        g.fillRect(cell.x, cell.y, cell.width, cell.height);
+        g.setColor(index == hoverIndex ? HOVER_BORDER : CELL_BORDER);
+        g.drawRect(cell.x, cell.y, cell.width - 1, cell.height - 1);
+
+        int size = ThumbnailStore.THUMB_SIZE;
+        int iconX = cell.x + (cell.width - size) / 2;
+        int iconY = cell.y + ICON_TOP;
+        BufferedImage thumbnail = source.getThumbnail(item.path);
+        if (thumbnail != null) {
+            g.drawImage(thumbnail, iconX, iconY, null);
+        } else {
+            g.setColor(PLACEHOLDER_BACKGROUND);
+            g.fillRect(iconX, iconY, size, size);
+            g.setColor(PLACEHOLDER_BORDER);
+            g.drawRect(iconX, iconY, size - 1, size - 1);
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("加载中...", iconX + 20, iconY + 54);
+        }
+
+        g.setColor(Color.BLACK);
+        String label = ellipsize(item.name, fm, cell.width - 8);
+        g.drawString(label, cell.x + (cell.width - fm.stringWidth(label)) / 2, iconY + size + 6 + fm.getAscent());
+    }
+
+    private static String ellipsize(String text, FontMetrics fm, int maxWidth) {
+        if (fm.stringWidth(text) <= maxWidth) return text;
+        String ellipsis = "...";
+        int end = text.length();
+        while (end > 0 && fm.stringWidth(text.substring(0, end)) + fm.stringWidth(ellipsis) > maxWidth) {
+            end--;
+        }
+        return text.substring(0, end) + ellipsis;
+    }
+
+    private int viewportWidth() {
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getWidth() > 0 ? parent.getWidth() : 250;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int width = viewportWidth();
+        int columns = Math.max(1, (width - GAP) / (CELL_WIDTH + GAP));
+        int rows = (items.size() + columns - 1) / columns;
+        return new Dimension(width, GAP + rows * (CELL_HEIGHT + GAP));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? (CELL_HEIGHT + GAP) / 4 : CELL_WIDTH / 4;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? Math.max(CELL_HEIGHT + GAP, visibleRect.height - CELL_HEIGHT) : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // 内容不足一屏时铺满视口，背景与右键菜单覆盖整个区域
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getHeight() > getPreferredSize().height;
+    }
+}
@@ -0,0 +1,147 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 按与视口距离排序的缩略图生成调度器
+ * 每次滚动后由调用方给出当前需要的全部缩略图及其距离，调度器整体替换等待队列：
+ * 已离开范围的任务直接丢弃，仍需要的任务按新距离重新排序。正在生成的任务不中断，完成后照常回调。
+ * 工作线程数按CPU核数确定。
+ */
+public class ThumbnailScheduler {
+
+    /**
+     * 生成缩略图（在工作线程调用），失败时返回null
+     */
+    public interface Loader {
+        BufferedImage load(String path) throws Exception;
+    }
+
+    /**
+     * 生成完成（在工作线程调用）
+     */
+    public interface Callback {
+        void onLoaded(String path, BufferedImage image);
+    }
+
+    private static final class Task implements Comparable<Task> {
+        final String path;
+        final long priority;
+        final long order;
+
+        Task(String path, long priority, long order) {
+            this.path = path;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int c = Long.compare(priority, other.priority);
+            return c != 0 ? c : Long.compare(order, other.order);
+        }
+    }
+
+    private final Loader loader;
+    private final Callback callback;
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private final Set<String> running = new HashSet<>();
+    private final Thread[] workers;
+    private long nextOrder = 0;
+    private boolean disposed = false;
+
+    public ThumbnailScheduler(Loader loader, Callback callback) {
+        this.loader = loader;
+        this.callback = callback;
+        // 留一个核给EDT与播放
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::run, "thumbnail-worker-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].setPriority(Thread.NORM_PRIORITY - 1);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 用新的需求整体替换等待队列
+     *
+     * @param wanted 路径 -> 与视口的距离（越小越先生成，可见区域内为0），按插入顺序打破平局
+     */
+    public synchronized void update(Map<String, Long> wanted) {
+        queue.clear();
+        for (Map.Entry<String, Long> e : wanted.entrySet()) {
+            if (!running.contains(e.getKey())) {
+                queue.add(new Task(e.getKey(), e.getValue(), nextOrder++));
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * 丢弃所有等待中的任务（切换文件夹时）
+     */
+    public synchronized void clear() {
+        queue.clear();
+    }
+
+    public synchronized int getPendingCount() {
+        return queue.size();
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * 停止所有工作线程（窗口关闭时）；正在生成的任务完成后不再取新任务
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        queue.clear();
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                while (!disposed && queue.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (disposed) return;
+                task = queue.poll();
+                running.add(task.path);
+            }
+            BufferedImage image = null;
+            try {
+                image = loader.load(task.path);
+            } catch (Throwable e) {
+                // 失败的缩略图保持占位图，再次进入视口时会重试；Error（如内存不足）也不能让工作线程退出
+                if (e instanceof Error) {
+                    System.out.println("缩略图生成失败: " + task.path + " - " + e);
+                }
+            } finally {
+                synchronized (this) {
+                    running.remove(task.path);
+                }
+            }
+            if (image != null) {
+                try {
+                    callback.onLoaded(task.path, image);
+                } catch (Throwable e) {
+                    System.out.println("缩略图回调失败: " + task.path + " - " + e);
+                }
+            }
+        }
+    }
+}
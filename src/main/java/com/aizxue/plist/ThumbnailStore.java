@@ -0,0 +1,316 @@
+package com.aizxue.plist;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 持久化缩略图存储
+ * 所有缩略图以固定大小的ARGB像素块依次追加到一个数据文件中，按段内存映射读写；
+ * 另有一个索引文件记录 规范路径 + 修改时间 + 文件大小 -> 槽位。
+ * 文件修改后旧槽位成为空洞，打开时空洞过多则先压缩再映射。
+ */
+public class ThumbnailStore {
+
+    public static final int THUMB_SIZE = 100;
+
+    private static final int DATA_MAGIC = 0x54484D42;  // "THMB"
+    private static final int INDEX_MAGIC = 0x54484958; // "THIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = THUMB_SIZE * THUMB_SIZE * 4;
+    private static final int SLOTS_PER_SEGMENT = 400; // 每段约16MB
+    private static final long SEGMENT_BYTES = (long) SLOTS_PER_SEGMENT * RECORD_BYTES;
+    private static final int COMPACT_MIN_DEAD = 256;
+    private static final String DATA_FILE_NAME = "thumbnails.dat";
+    private static final String INDEX_FILE_NAME = "thumbnails.idx";
+
+    private static final ThumbnailStore INSTANCE = new ThumbnailStore(
+            Boolean.parseBoolean(System.getProperty("ddsviewer.thumbnailStore", "true"))
+                    ? new File(Const.APP_CACHE_DIR) : null);
+
+    private static class Entry {
+        final long lastModified;
+        final long length;
+        final int slot;
+
+        Entry(long lastModified, long length, int slot) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.slot = slot;
+        }
+    }
+
+    private final File dataFile;
+    private final File indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private FileChannel channel;
+    private int slotCount = 0;
+    private volatile boolean opened = false;
+    private volatile boolean dirty = false;
+
+    public ThumbnailStore(File directory) {
+        this.dataFile = directory != null ? new File(directory, DATA_FILE_NAME) : null;
+        this.indexFile = directory != null ? new File(directory, INDEX_FILE_NAME) : null;
+    }
+
+    public static ThumbnailStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 读取plist对应的缩略图，文件未变化时返回存储的结果，否则返回null
+     */
+    public BufferedImage get(File plistFile) {
+        if (!ensureOpen()) return null;
+        try {
+            Entry entry = entries.get(plistFile.getCanonicalPath());
+            if (entry == null || entry.lastModified != plistFile.lastModified() || entry.length != plistFile.length()) {
+                return null;
+            }
+            BufferedImage image = new BufferedImage(THUMB_SIZE, THUMB_SIZE, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            recordBuffer(entry.slot).asIntBuffer().get(pixels);
+            return image;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 写入缩略图（尺寸须为THUMB_SIZE×THUMB_SIZE），同一文件的旧槽位成为空洞
+     */
+    public void put(File plistFile, BufferedImage thumbnail) {
+        if (thumbnail.getWidth() != THUMB_SIZE || thumbnail.getHeight() != THUMB_SIZE || !ensureOpen()) return;
+        try {
+            String key = plistFile.getCanonicalPath();
+            long lastModified = plistFile.lastModified();
+            long length = plistFile.length();
+            int slot = allocateSlot();
+            IntBuffer out = recordBuffer(slot).asIntBuffer();
+            if (thumbnail.getType() == BufferedImage.TYPE_INT_ARGB) {
+                out.put(((DataBufferInt) thumbnail.getRaster().getDataBuffer()).getData(), 0, THUMB_SIZE * THUMB_SIZE);
+            } else {
+                out.put(thumbnail.getRGB(0, 0, THUMB_SIZE, THUMB_SIZE, null, 0, THUMB_SIZE));
+            }
+            entries.put(key, new Entry(lastModified, length, slot));
+            dirty = true;
+        } catch (IOException e) {
+            System.out.println("缩略图写入失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 丢弃plist对应的缩略图（纹理变化而plist本身未变时调用），旧槽位成为空洞
+     */
+    public void invalidate(File plistFile) {
+        if (!ensureOpen()) return;
+        try {
+            if (entries.remove(plistFile.getCanonicalPath()) != null) {
+                dirty = true;
+            }
+        } catch (IOException ignore) {
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 槽位对应的字节区域；返回独立的视图，多线程可同时读写不同槽位
+    private ByteBuffer recordBuffer(int slot) throws IOException {
+        MappedByteBuffer segment = segment(slot / SLOTS_PER_SEGMENT);
+        ByteBuffer view = segment.duplicate();
+        int offset = (slot % SLOTS_PER_SEGMENT) * RECORD_BYTES;
+        view.position(offset);
+        view.limit(offset + RECORD_BYTES);
+        return view.slice();
+    }
+
+    private synchronized MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            long position = HEADER_BYTES + segments.size() * SEGMENT_BYTES;
+            // READ_WRITE映射超出文件末尾时文件自动增长
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_BYTES));
+        }
+        return segments.get(index);
+    }
+
+    private synchronized int allocateSlot() {
+        return slotCount++;
+    }
+
+    private boolean ensureOpen() {
+        if (opened) return channel != null;
+        synchronized (this) {
+            if (opened) return channel != null;
+            opened = true;
+            if (dataFile == null) return false;
+            try {
+                File dir = dataFile.getParentFile();
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    return false;
+                }
+                boolean valid = loadIndex() && hasValidHeader();
+                if (!valid) {
+                    entries.clear();
+                    slotCount = 0;
+                    dataFile.delete();
+                } else if (slotCount - entries.size() > Math.max(COMPACT_MIN_DEAD, entries.size())) {
+                    try {
+                        compact();
+                    } catch (IOException e) {
+                        // 压缩失败时原文件与索引不变，照常使用
+                        System.out.println("缩略图存储压缩失败: " + e.getMessage());
+                    }
+                }
+                channel = FileChannel.open(dataFile.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (!valid) {
+                    writeHeader();
+                }
+            } catch (IOException e) {
+                System.out.println("缩略图存储打开失败: " + e.getMessage());
+                entries.clear();
+                channel = null;
+            }
+            return channel != null;
+        }
+    }
+
+    private boolean loadIndex() {
+        if (!indexFile.isFile() || !dataFile.isFile()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION || in.readInt() != THUMB_SIZE) {
+                return false;
+            }
+            slotCount = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long lastModified = in.readLong();
+                long length = in.readLong();
+                int slot = in.readInt();
+                if (slot < 0 || slot >= slotCount) return false;
+                entries.put(key, new Entry(lastModified, length, slot));
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean hasValidHeader() {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(dataFile))) {
+            return in.readInt() == DATA_MAGIC && in.readInt() == VERSION && in.readInt() == THUMB_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(DATA_MAGIC).putInt(VERSION).putInt(THUMB_SIZE).putInt(0).flip();
+        channel.write(header, 0);
+    }
+
+    /**
+     * 把仍有效的槽位按原顺序紧凑地复制到新文件，同时丢弃已不存在的plist；
+     * 只在映射之前进行，避免替换仍被映射的文件。替换成功后才更新内存中的索引
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<String, Entry>> live = new ArrayList<>(entries.entrySet());
+        live.sort(Comparator.comparingInt(e -> e.getValue().slot));
+        File tmp = new File(dataFile.getPath() + ".tmp");
+        Map<String, Entry> compacted = new HashMap<>();
+        int next = 0;
+        try (FileChannel in = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(DATA_MAGIC).putInt(VERSION).putInt(THUMB_SIZE).putInt(0).flip();
+            out.write(header);
+            for (Map.Entry<String, Entry> e : live) {
+                if (!new File(e.getKey()).isFile()) continue;
+                Entry entry = e.getValue();
+                long position = HEADER_BYTES + (long) entry.slot * RECORD_BYTES;
+                in.transferTo(position, RECORD_BYTES, out);
+                compacted.put(e.getKey(), new Entry(entry.lastModified, entry.length, next++));
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        try {
+            replace(tmp, dataFile);
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        entries.clear();
+        entries.putAll(compacted);
+        slotCount = next;
+        dirty = true;
+        save();
+    }
+
+    // 用临时文件替换目标；文件系统不支持原子替换时退回普通替换，任何失败都不会先删掉目标
+    private static void replace(File tmp, File target) throws IOException {
+        try {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 将映射的数据刷到磁盘并写回索引（先写临时文件再替换）
+     */
+    public synchronized void save() {
+        if (indexFile == null || !dirty) return;
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(THUMB_SIZE);
+            Map<String, Entry> snapshot = new java.util.LinkedHashMap<>(entries);
+            out.writeInt(slotCount);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().lastModified);
+                out.writeLong(e.getValue().length);
+                out.writeInt(e.getValue().slot);
+            }
+        } catch (IOException e) {
+            System.out.println("缩略图索引写入失败: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        try {
+            replace(tmp, indexFile);
+            dirty = false;
+        } catch (IOException e) {
+            System.out.println("缩略图索引替换失败: " + e.getMessage());
+            tmp.delete();
+        }
+    }
+}